@@ -0,0 +1,27 @@
+package archit.benchmark;
+
+import archit.common.Interpreter;
+import archit.common.SilentLogging;
+import archit.common.natives.GeometryNatives;
+import java.nio.file.Path;
+
+/**
+ * Example scripts used by the benchmarks, read from the folder passed by Gradle in {@code archit.examples}.
+ */
+final class Examples {
+    private Examples() {}
+
+    static Path path(String name) {
+        return Path.of(System.getProperty("archit.examples", "examples"), name + ".archit");
+    }
+
+    /**
+     * @return interpreter with the same natives as the console app, but placing blocks nowhere
+     */
+    static Interpreter interpreter() {
+        var interpreter = new Interpreter(new SilentLogging());
+        var platform = new NoOpPlatform();
+        interpreter.getStandardLibrary().registerNatives(platform, new GeometryNatives(platform));
+        return interpreter;
+    }
+}
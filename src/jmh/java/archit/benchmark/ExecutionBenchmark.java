@@ -0,0 +1,67 @@
+package archit.benchmark;
+
+import archit.common.Interpreter;
+import archit.common.ScriptRun;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole runs of the example scripts against a platform that places no blocks. {@link #run} clears the program
+ * cache first, so it measures reading, parsing, type checking, compilation and execution in the virtual machine,
+ * while {@link #runCached} measures only reading the script and executing its cached program.
+ * Neither uses {@code .compiled} files, unless they were created in the examples folder.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExecutionBenchmark {
+    private static final long SLICE_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    @Param({"fib", "sphere", "pyramid", "mario_pixel_art"})
+    public String script;
+
+    private Interpreter interpreter;
+    private Path path;
+
+    @Setup
+    public void setup() {
+        interpreter = Examples.interpreter();
+        path = Examples.path(script);
+    }
+
+    @Benchmark
+    public long run() {
+        interpreter.getProgramCache().clear();
+        return execute();
+    }
+
+    @Benchmark
+    public long runCached() {
+        return execute();
+    }
+
+    private long execute() {
+        var run = new ScriptRun(interpreter, path);
+        if (!run.startExecution()) {
+            throw new IllegalStateException("Script " + path + " failed to start");
+        }
+        while (!run.isStopped()) {
+            run.runNextTick(SLICE_NANOS);
+        }
+        return run.getInstructionCount();
+    }
+}
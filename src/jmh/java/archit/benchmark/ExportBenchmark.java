@@ -0,0 +1,85 @@
+package archit.benchmark;
+
+import archit.app.AnvilExporter;
+import archit.app.ObjExporter;
+import archit.app.SchematicExporter;
+import archit.app.VoxelStore;
+import archit.common.Material;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Export of a sphere of three materials, about 140 thousand blocks, in every format of the console app.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ExportBenchmark {
+    private static final int RADIUS = 32;
+
+    private VoxelStore store;
+    private Path directory;
+
+    @Setup
+    public void setup() throws IOException {
+        store = new VoxelStore();
+        Material[] materials = {Material.of("stone"), Material.of("dirt"), Material.of("oak_planks")};
+        for (int x = -RADIUS; x <= RADIUS; x++) {
+            for (int y = -RADIUS; y <= RADIUS; y++) {
+                for (int z = -RADIUS; z <= RADIUS; z++) {
+                    if (x * x + y * y + z * z <= RADIUS * RADIUS) {
+                        store.set(x, y + 64, z, materials[Math.floorMod(x + y + z, materials.length)]);
+                    }
+                }
+            }
+        }
+        directory = Files.createTempDirectory("archit-export");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (var file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public void obj() throws IOException {
+        ObjExporter.export(store, directory.resolve("sphere.obj"), directory.resolve("sphere.mtl"));
+    }
+
+    @Benchmark
+    public void schem() throws IOException {
+        SchematicExporter.exportSponge(store, directory.resolve("sphere.schem"));
+    }
+
+    @Benchmark
+    public void nbt() throws IOException {
+        SchematicExporter.exportStructure(store, directory.resolve("sphere.nbt"));
+    }
+
+    @Benchmark
+    public void mca() throws IOException {
+        AnvilExporter.export(store, directory.resolve("region"));
+    }
+}
@@ -0,0 +1,75 @@
+package archit.benchmark;
+
+import archit.common.ScriptErrorListener;
+import archit.common.ScriptParser;
+import archit.parser.ArchitLexer;
+import archit.parser.ArchitParser;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parse throughput in lines per second on generated scripts of 100 000 lines, made of copies
+ * of an example script, each in its own scope. Compares a fresh parser with the default LL prediction
+ * to {@link ScriptParser}, which tries SLL first and reuses the lexer and parser of the thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(LargeScriptParsingBenchmark.LINES)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class LargeScriptParsingBenchmark {
+    static final int LINES = 100_000;
+
+    @Param({"sphere", "mario_pixel_art"})
+    public String script;
+
+    private String source;
+
+    @Setup
+    public void setup() throws IOException {
+        var example = Files.readString(Examples.path(script)).strip();
+        int exampleLines = (int) example.lines().count() + 2;
+        var sb = new StringBuilder();
+        int lines = 0;
+        while (lines + exampleLines <= LINES) {
+            sb.append("{\n").append(example).append("\n}\n");
+            lines += exampleLines;
+        }
+        sb.append("\n".repeat(LINES - lines));
+        source = sb.toString();
+    }
+
+    @Benchmark
+    public ParseTree fullContext() {
+        var lexer = new ArchitLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        var parser = new ArchitParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        return parser.program();
+    }
+
+    @Benchmark
+    public ParseTree twoStage() {
+        return ScriptParser.get().parse(
+            CharStreams.fromString(source), new ScriptErrorListener(null), ArchitParser::program
+        );
+    }
+}
@@ -0,0 +1,63 @@
+package archit.benchmark;
+
+import archit.common.Interpreter;
+import archit.common.ScriptRun;
+import archit.common.SilentLogging;
+import archit.common.Type;
+import archit.common.natives.BasicNatives;
+import archit.common.stdlib.NativeInvoker;
+import java.lang.reflect.Method;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Compares the reflective native dispatch used before (argument copy + {@link Method#invoke})
+ * with the {@link NativeInvoker} bound at registration, on {@code move(x, y, z)}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class NativeDispatchBenchmark {
+    private ScriptRun run;
+    private Object[] stack;
+    private NativeInvoker invoker;
+    private BasicNatives natives;
+    private Method method;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        var interpreter = new Interpreter(new SilentLogging());
+        run = new ScriptRun(interpreter, Path.of("benchmark.arch"));
+        // argumenty leżą na stosie maszyny wirtualnej za innymi wartościami
+        stack = new Object[] {"other", 1L, 0L, -1L};
+        invoker = (NativeInvoker) interpreter.getStandardLibrary()
+                      .resolveFunction("move", new Type[] {Type.number, Type.number, Type.number})
+                      .callInfo();
+        natives = new BasicNatives();
+        method = BasicNatives.class.getMethod("move", ScriptRun.class, Number.class, Number.class, Number.class);
+    }
+
+    @Benchmark
+    public Object reflective() throws ReflectiveOperationException {
+        var args = new Object[3];
+        System.arraycopy(stack, 1, args, 0, 3);
+        var paramExt = new Object[1 + args.length];
+        paramExt[0] = run;
+        System.arraycopy(args, 0, paramExt, 1, args.length);
+        return method.invoke(natives, paramExt);
+    }
+
+    @Benchmark
+    public Object methodHandle() {
+        return invoker.invoke(run, stack, 1);
+    }
+}
@@ -0,0 +1,24 @@
+package archit.benchmark;
+
+import archit.common.Material;
+import archit.common.ScriptRun;
+import archit.common.natives.BlockPlacer;
+import archit.common.stdlib.ArchitNative;
+
+/**
+ * Platform natives that place nothing, so that execution benchmarks do not depend on the world storage.
+ */
+public class NoOpPlatform implements BlockPlacer {
+    private static final Material AIR = Material.of("air");
+
+    @ArchitNative("native place(block: material);")
+    public void place(ScriptRun run, Material block) {}
+
+    @Override
+    public void place(ScriptRun run, int x, int y, int z, Material block) {}
+
+    @ArchitNative("native check(): material;")
+    public Material check(ScriptRun run) {
+        return AIR;
+    }
+}
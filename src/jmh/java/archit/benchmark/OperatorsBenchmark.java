@@ -0,0 +1,70 @@
+package archit.benchmark;
+
+import archit.common.visitors.Operators;
+import java.math.BigInteger;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Single binary operators as executed by the virtual machine, on boxed operands. Numbers fitting
+ * in a long take the fast path, the rest is promoted to {@link BigInteger}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Fork(1)
+public class OperatorsBenchmark {
+    // pola nie są stałymi, aby JIT nie zwinął operacji
+    public Object small = 1234L;
+    public Object other = 5678L;
+    public Object large = Long.MAX_VALUE;
+    public Object big = BigInteger.TWO.pow(100);
+    public Object real = 1.5;
+    public Object text = "stone";
+
+    @Benchmark
+    public Object addSmall() {
+        return Operators.ADD_NUMBERS.apply(small, other);
+    }
+
+    @Benchmark
+    public Object addOverflowing() {
+        return Operators.ADD_NUMBERS.apply(large, other);
+    }
+
+    @Benchmark
+    public Object addBig() {
+        return Operators.ADD_NUMBERS.apply(big, other);
+    }
+
+    @Benchmark
+    public Object multiplySmall() {
+        return Operators.MULTIPLY_NUMBERS.apply(small, other);
+    }
+
+    @Benchmark
+    public Object modulo() {
+        return Operators.MODULO.apply(other, small);
+    }
+
+    @Benchmark
+    public Object addReals() {
+        return Operators.ADD_REALS.apply(real, real);
+    }
+
+    @Benchmark
+    public Object lessSmall() {
+        return Operators.LESS_NUMBERS.apply(small, other);
+    }
+
+    @Benchmark
+    public Object equalsText() {
+        return Operators.EQUALS.apply(text, "stone");
+    }
+}
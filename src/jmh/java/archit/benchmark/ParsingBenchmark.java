@@ -0,0 +1,62 @@
+package archit.benchmark;
+
+import archit.parser.ArchitLexer;
+import archit.parser.ArchitParser;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Lexing and parsing of the example scripts, from source text to the parse tree.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParsingBenchmark {
+    @Param({"fib", "sphere", "pyramid", "mario_pixel_art"})
+    public String script;
+
+    private String source;
+
+    @Setup
+    public void setup() throws IOException {
+        source = Files.readString(Examples.path(script));
+    }
+
+    @Benchmark
+    public int lex() {
+        var tokens = new CommonTokenStream(lexer());
+        tokens.fill();
+        return tokens.size();
+    }
+
+    @Benchmark
+    public ParseTree parse() {
+        var parser = new ArchitParser(new CommonTokenStream(lexer()));
+        parser.removeErrorListeners();
+        return parser.program();
+    }
+
+    private ArchitLexer lexer() {
+        var lexer = new ArchitLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        return lexer;
+    }
+}
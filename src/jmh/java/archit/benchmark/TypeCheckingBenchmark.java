@@ -0,0 +1,64 @@
+package archit.benchmark;
+
+import archit.common.ScriptRun;
+import archit.common.visitors.CompilingVisitor;
+import archit.common.visitors.InfoTables;
+import archit.common.visitors.TypeCheckingVisitor;
+import archit.common.vm.CompiledProgram;
+import archit.parser.ArchitLexer;
+import archit.parser.ArchitParser;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Type checking of already parsed example scripts, and their compilation to bytecode.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TypeCheckingBenchmark {
+    @Param({"fib", "sphere", "pyramid", "mario_pixel_art"})
+    public String script;
+
+    private ScriptRun run;
+    private ArchitParser.ProgramContext tree;
+    private InfoTables tables;
+
+    @Setup
+    public void setup() throws IOException {
+        var path = Examples.path(script);
+        run = new ScriptRun(Examples.interpreter(), path);
+        var lexer = new ArchitLexer(CharStreams.fromPath(path));
+        var parser = new ArchitParser(new CommonTokenStream(lexer));
+        tree = parser.program();
+        tables = typeCheck();
+    }
+
+    @Benchmark
+    public InfoTables typeCheck() {
+        var typeChecker = new TypeCheckingVisitor(run);
+        typeChecker.visit(tree);
+        return typeChecker.getTables();
+    }
+
+    @Benchmark
+    public CompiledProgram compile() {
+        return new CompilingVisitor(tables).compile(tree);
+    }
+}
@@ -0,0 +1,198 @@
+package archit.app;
+
+import archit.common.Material;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Exports a {@link VoxelStore} directly into Anvil region files ({@code r.X.Z.mca}), so that a build can be
+ * generated offline and the resulting {@code region} directory copied into a world.
+ * <p>
+ * Regions are written in parallel on a fork-join pool, with the chunks of each region also encoded
+ * in parallel. Chunks are saved as fully generated, without light and heightmaps, which the server
+ * recomputes when loading them. Blocks outside the overworld height range are skipped.
+ */
+public final class AnvilExporter {
+    private AnvilExporter() {}
+
+    private static final int MIN_SECTION_Y = -4;
+    private static final int MAX_SECTION_Y = 19;
+    private static final int SECTOR_SIZE = 4096;
+    private static final int HEADER_SECTORS = 2;
+    private static final int MAX_CHUNK_SECTORS = 255;
+    private static final byte COMPRESSION_ZLIB = 2;
+    private static final String AIR = "minecraft:air";
+    private static final String BIOME = "minecraft:plains";
+
+    private record Section(int y, VoxelSection blocks) {}
+
+    private record Chunk(int x, int z, List<Section> sections) {}
+
+    private record EncodedChunk(Chunk chunk, byte[] data) {}
+
+    public static void export(VoxelStore store, Path regionDirectory) throws IOException {
+        // region -> chunk -> sekcje, klucze jak w Minecrafcie: z w starszych 32 bitach, x w młodszych
+        Map<Long, Map<Long, Chunk>> regions = new HashMap<>();
+        store.forEachSection((sectionX, sectionY, sectionZ, section) -> {
+            if (sectionY < MIN_SECTION_Y || sectionY > MAX_SECTION_Y) {
+                return;
+            }
+            var chunks = regions.computeIfAbsent(key(sectionX >> 5, sectionZ >> 5), k -> new HashMap<>());
+            chunks.computeIfAbsent(key(sectionX, sectionZ), k -> new Chunk(sectionX, sectionZ, new ArrayList<>()))
+                  .sections().add(new Section(sectionY, section));
+        });
+
+        Files.createDirectories(regionDirectory);
+        var pool = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<Void>> tasks = new ArrayList<>();
+            for (var entry : regions.entrySet()) {
+                var file = regionDirectory.resolve(
+                    "r." + (int) (long) entry.getKey() + "." + (int) (entry.getKey() >> 32) + ".mca"
+                );
+                var chunks = entry.getValue().values();
+                tasks.add(pool.submit(() -> {
+                    writeRegion(file, chunks.parallelStream().map(AnvilExporter::encode).toList());
+                    return null;
+                }));
+            }
+            for (var task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Export interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof UncheckedIOException cause) {
+                throw cause.getCause();
+            }
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw (RuntimeException) e.getCause();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Region file: a table of chunk locations in 4 KiB sectors, a table of timestamps,
+     * then every chunk as its length, compression type and compressed NBT, padded to whole sectors.
+     */
+    private static void writeRegion(Path file, List<EncodedChunk> chunks) throws IOException {
+        var header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE);
+        int timestamp = (int) (System.currentTimeMillis() / 1000);
+        try (var channel = FileChannel.open(
+            file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            int sector = HEADER_SECTORS;
+            for (var encoded : chunks) {
+                int length = encoded.data().length + 5;
+                int sectors = (length + SECTOR_SIZE - 1) / SECTOR_SIZE;
+                if (sectors > MAX_CHUNK_SECTORS) {
+                    throw new IOException(
+                        "Chunk " + encoded.chunk().x() + ", " + encoded.chunk().z() + " is too large for a region file"
+                    );
+                }
+                var buffer = ByteBuffer.allocate(sectors * SECTOR_SIZE);
+                buffer.putInt(encoded.data().length + 1).put(COMPRESSION_ZLIB).put(encoded.data());
+                buffer.clear();
+                writeFully(channel, buffer, (long) sector * SECTOR_SIZE);
+
+                int slot = (encoded.chunk().x() & 31) + (encoded.chunk().z() & 31) * 32;
+                header.putInt(slot * 4, sector << 8 | sectors);
+                header.putInt(SECTOR_SIZE + slot * 4, timestamp);
+                sector += sectors;
+            }
+            writeFully(channel, header, 0);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static EncodedChunk encode(Chunk chunk) {
+        var bytes = new ByteArrayOutputStream();
+        try (var nbt = new NbtWriter(new DeflaterOutputStream(bytes))) {
+            nbt.beginCompound("");
+            nbt.writeInt("DataVersion", SchematicExporter.DATA_VERSION);
+            nbt.writeInt("xPos", chunk.x());
+            nbt.writeInt("yPos", MIN_SECTION_Y);
+            nbt.writeInt("zPos", chunk.z());
+            nbt.writeString("Status", "minecraft:full");
+            nbt.writeLong("LastUpdate", 0);
+            nbt.writeLong("InhabitedTime", 0);
+
+            nbt.beginList("sections", NbtWriter.TAG_COMPOUND, chunk.sections().size());
+            for (var section : chunk.sections()) {
+                nbt.writeByte("Y", section.y());
+                writeBlockStates(nbt, section.blocks());
+                nbt.beginCompound("biomes");
+                nbt.beginList("palette", NbtWriter.TAG_STRING, 1);
+                nbt.writeStringElement(BIOME);
+                nbt.endCompound();
+                nbt.endCompound();
+            }
+
+            nbt.beginList("block_entities", NbtWriter.TAG_COMPOUND, 0);
+            nbt.endCompound();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return new EncodedChunk(chunk, bytes.toByteArray());
+    }
+
+    /**
+     * Palette of the section and indices packed into longs with at least 4 bits each, not spanning
+     * across longs, in y, z, x order. A section of a single block has no data at all.
+     */
+    private static void writeBlockStates(NbtWriter nbt, VoxelSection section) throws IOException {
+        Map<Material, Integer> palette = new LinkedHashMap<>();
+        int[] indices = new int[VoxelSection.SIZE];
+        for (int index = 0; index < VoxelSection.SIZE; index++) {
+            indices[index] = palette.computeIfAbsent(section.get(index), m -> palette.size());
+        }
+
+        nbt.beginCompound("block_states");
+        nbt.beginList("palette", NbtWriter.TAG_COMPOUND, palette.size());
+        for (var material : palette.keySet()) {
+            nbt.writeString("Name", material == null ? AIR : material.toString());
+            nbt.endCompound();
+        }
+        if (palette.size() > 1) {
+            int bits = Math.max(4, 32 - Integer.numberOfLeadingZeros(palette.size() - 1));
+            int perLong = 64 / bits;
+            long[] data = new long[(VoxelSection.SIZE + perLong - 1) / perLong];
+            for (int index = 0; index < VoxelSection.SIZE; index++) {
+                data[index / perLong] |= (long) indices[index] << (index % perLong * bits);
+            }
+            nbt.writeLongArray("data", data);
+        }
+        nbt.endCompound();
+    }
+
+    private static long key(int x, int z) {
+        return (x & 0xFFFFFFFFL) | ((long) z << 32);
+    }
+}
@@ -1,26 +1,36 @@
 package archit.app;
 
 import archit.common.Interpreter;
-import archit.common.Material;
 import archit.common.ScriptRun;
-import java.io.BufferedWriter;
+import archit.common.natives.GeometryNatives;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.Map;
 import org.fusesource.jansi.AnsiConsole;
 
 public class ArchitMain {
+    public enum ExportFormat {
+        OBJ,
+        SCHEM,
+        NBT,
+        MCA
+    }
+
     private Interpreter interpreter;
     private ScriptRun run;
+    private final LoggingImpl logging;
+    private final ExportFormat format;
 
     public ArchitMain(String script, String argsString) {
-        var logging = new LoggingImpl(new File("log.txt"));
+        this(script, argsString, ExportFormat.OBJ);
+    }
+
+    public ArchitMain(String script, String argsString, ExportFormat format) {
+        this.format = format;
+        this.logging = createLogging();
         this.interpreter = new Interpreter(logging);
         if (script == null) {
             logging.scriptError(null, "HINT: Pass the script name as a CLI argument.");
@@ -29,92 +39,129 @@ public class ArchitMain {
         this.run = new ScriptRun(interpreter, Path.of(script), null, argsString);
     }
 
+    static LoggingImpl createLogging() {
+        // -Darchit.log.level=TRACE włącza logowanie każdego postawionego bloku
+        var name = System.getProperty("archit.log.level", "INFO");
+        var level = LoggingImpl.Level.INFO;
+        try {
+            level = LoggingImpl.Level.valueOf(name.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            System.err.println(
+                "Unknown log level " + name + ", using INFO. Valid levels: "
+                + Arrays.toString(LoggingImpl.Level.values())
+            );
+        }
+        return new LoggingImpl(new File("log.txt"), level);
+    }
+
     public void run() {
-        Map<BlockPosition, Material> map = new HashMap<>();
+        var store = new VoxelStore();
         PlatformNatives platform = new PlatformNatives();
-        interpreter.getStandardLibrary().registerNatives(platform);
+        interpreter.getStandardLibrary().registerNatives(platform, new GeometryNatives(platform));
 
-        this.run = new ScriptRun(interpreter, run.getScriptLocation(), map, run.getArgs());
+        this.run = new ScriptRun(interpreter, run.getScriptLocation(), store, run.getArgs());
 
         boolean success = run.startExecution();
         while (!interpreter.getCurrentRuns().isEmpty()) {
-            run.runNextTick();
+            interpreter.getScheduler().runTick();
         }
 
         if (success) {
-            exportToObj();
+            export(run, format);
         }
+        logging.close();
     }
 
-    @SuppressWarnings("unchecked")
-    public void exportToObj() {
+    /**
+     * Writes the blocks placed by a finished run to a file named after its script.
+     *
+     * @return true if the export succeeded
+     */
+    static boolean export(ScriptRun run, ExportFormat format) {
         String scriptFileName = run.getScriptLocation().getFileName().toString();
-        String directoryPath = "obj";
-        String objFileName = directoryPath + "/" + scriptFileName.replaceFirst("\\.\\w+$", "") + ".obj";
+        return export(run, format, Path.of(scriptFileName.replaceFirst("\\.\\w+$", "")));
+    }
+
+    /**
+     * @param name relative path of the output inside the folder of the format, without an extension;
+     *             missing folders are created
+     * @return true if the export succeeded
+     */
+    static boolean export(ScriptRun run, ExportFormat format, Path name) {
+        String baseName = name.toString();
+        var store = (VoxelStore) run.getMetadata();
         try {
-            // tworzenie folderu
-            Files.createDirectories(Paths.get(directoryPath));
-
-            try (BufferedWriter writer = new BufferedWriter(new FileWriter(objFileName))) {
-                long vertexIndex = 1;
-
-                Map<BlockPosition, Material> map = (Map<BlockPosition, Material>) run.getMetadata();
-
-                for (BlockPosition pos : map.keySet()) {
-                    float x = pos.x();
-                    float y = pos.y();
-                    float z = pos.z();
-
-                    if (!map.getOrDefault(pos, new Material("air")).toString().equals("minecraft:air")) {
-                        // dodanie 8 wierzcholkow szescianu
-                        for (float[] offset : cubeVertices) {
-                            writer.write(
-                                String.format("v %.1f %.1f %.1f%n", x + offset[0], y + offset[1], z + offset[2])
-                            );
-                        }
-
-                        // dodanie 12 scian (12 trojkatow czyli 1 szescian)
-                        for (long[] face : cubeFaces) {
-                            writer.write(String.format(
-                                "f %d %d %d%n",
-                                vertexIndex + face[0] - 1,
-                                vertexIndex + face[1] - 1,
-                                vertexIndex + face[2] - 1
-                            ));
-                        }
+            switch (format) {
+                case OBJ -> {
+                    Path directory = Paths.get("obj");
+                    Path file = directory.resolve(baseName + ".obj");
+                    // tworzenie folderu
+                    Files.createDirectories(file.getParent());
+                    ObjExporter.export(store, file, directory.resolve(baseName + ".mtl"));
+                }
+                case SCHEM, NBT -> {
+                    String extension = format.name().toLowerCase();
+                    Path file = Paths.get(extension).resolve(baseName + "." + extension);
+                    Files.createDirectories(file.getParent());
+                    if (format == ExportFormat.SCHEM) {
+                        SchematicExporter.exportSponge(store, file);
+                    } else {
+                        SchematicExporter.exportStructure(store, file);
                     }
-
-                    vertexIndex += 8;
                 }
+                // gotowy folder region do skopiowania do świata
+                case MCA -> AnvilExporter.export(store, Paths.get("mca", baseName, "region"));
             }
+            return true;
         } catch (IOException e) {
-            interpreter.getLogger().scriptError(run, "Failed to export to OBJ: {}", e.getMessage());
+            run.getInterpreter().getLogger().scriptError(run, "Failed to export to {}: {}", format, e.getMessage());
+            return false;
         }
     }
 
-    // pozycje wierzcholkow szescianu
-    private static final float[][] cubeVertices = {
-        { 0, 0, 0 }, { 1, 0, 0 }, { 1, 1, 0 }, { 0, 1, 0 },  // dolna warstwa
-        { 0, 0, 1 }, { 1, 0, 1 }, { 1, 1, 1 }, { 0, 1, 1 }  // górna warstwa
-    };
-
-    // wierzcholki 12 trojkatow - wartosci odpowiadaja wierzchołkom szescianu (np. 1 to {0,0,0})
-    private static final long[][] cubeFaces = {
-        { 1, 2, 3 }, { 1, 3, 4 },  // dol
-        { 5, 8, 7 }, { 5, 7, 6 },  // gora
-        { 1, 5, 6 }, { 1, 6, 2 },  // przod
-        { 2, 6, 7 }, { 2, 7, 3 },  // prawo
-        { 3, 7, 8 }, { 3, 8, 4 },  // tyl
-        { 4, 8, 5 }, { 4, 5, 1 }  // lewo
-    };
+    private static String formatNames(String separator) {
+        return String.join(
+            separator, Arrays.stream(ExportFormat.values()).map(f -> f.name().toLowerCase()).toList()
+        );
+    }
 
     public static void main(String[] args) {
         AnsiConsole.systemInstall();
 
-        String script = args.length > 0 ? args[0] : null;
-        String joinedArgs = args.length > 1 ? String.join(" ", Arrays.copyOfRange(args, 1, args.length)) : "";
+        // opcje przed nazwą skryptu, np. --format=schem
+        var format = ExportFormat.OBJ;
+        boolean batch = false;
+        int first = 0;
+        for (; first < args.length && args[first].startsWith("--"); first++) {
+            if (args[first].startsWith("--format=")) {
+                var name = args[first].substring("--format=".length());
+                try {
+                    format = ExportFormat.valueOf(name.toUpperCase());
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Unknown format " + name + ". Valid formats: " + formatNames(", "));
+                    AnsiConsole.systemUninstall();
+                    return;
+                }
+            } else if (args[first].equals("--batch")) {
+                batch = true;
+            } else {
+                System.err.println(
+                    "Unknown option " + args[first] + ". Valid options: --format=<" + formatNames("|") + ">, --batch"
+                );
+                AnsiConsole.systemUninstall();
+                return;
+            }
+        }
 
-        new ArchitMain(script, joinedArgs).run();
+        String script = args.length > first ? args[first] : null;
+        String joinedArgs =
+            args.length > first + 1 ? String.join(" ", Arrays.copyOfRange(args, first + 1, args.length)) : "";
+
+        if (batch) {
+            BatchRunner.runFromCommandLine(script, joinedArgs, format);
+        } else {
+            new ArchitMain(script, joinedArgs, format).run();
+        }
         AnsiConsole.systemUninstall();
     }
 }
@@ -0,0 +1,156 @@
+package archit.app;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes lines on a background thread. Lines wait in a bounded ring buffer and are written in batches,
+ * with a single flush per batch. When the buffer is full, callers wait instead of dropping lines.
+ * If the background thread dies, callers write their lines themselves.
+ * <p>
+ * Closing stops the thread but leaves the underlying writer open and flushed, so that lines logged later,
+ * e.g. from shutdown hooks, are still written directly by their callers. The file is released with the process.
+ */
+public class AsyncLogWriter implements Closeable {
+    public static final int CAPACITY = 8192;
+    private static final String END = new String("END");  // NOSONAR - porównywany przez referencję
+    private static final long OFFER_WAIT_MILLIS = 100;
+
+    private final Writer writer;
+    private final BlockingQueue<String> buffer = new ArrayBlockingQueue<>(CAPACITY);
+    private final Thread thread;
+    // także przy przerwaniu programu, np. przez Ctrl+C
+    private final Thread shutdownHook = new Thread(this::close);
+    private volatile boolean closed = false;
+    private volatile boolean errorReported = false;
+
+    public AsyncLogWriter(Writer writer) {
+        this.writer = writer;
+        this.thread = new Thread(this::drain, "archit-log-writer");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
+    }
+
+    public void write(String line) {
+        if (closed || !enqueue(line)) {
+            writeDirectly(line);
+        } else if (closed && !thread.isAlive()) {
+            // wiersz mógł trafić do bufora już po ostatniej partii wątku
+            writeDirectly(null);
+        }
+    }
+
+    /**
+     * Writes all buffered lines and stops the background thread.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            Runtime.getRuntime().removeShutdownHook(shutdownHook);
+        } catch (IllegalStateException e) {
+            // zamykanie z samego haka - maszyna wirtualna już się kończy
+        }
+        if (enqueue(END)) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        // wiersze dodane po END lub pozostawione przez zatrzymany wątek
+        writeDirectly(null);
+    }
+
+    /**
+     * @return false if the background thread is no longer running, so the line has to be written directly
+     */
+    private boolean enqueue(String line) {
+        try {
+            while (thread.isAlive()) {
+                if (buffer.offer(line, OFFER_WAIT_MILLIS, TimeUnit.MILLISECONDS)) {
+                    return true;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * Writes what is left in the buffer and the given line, if any, on the calling thread.
+     */
+    private void writeDirectly(String line) {
+        List<String> rest = new ArrayList<>();
+        synchronized (writer) {
+            buffer.drainTo(rest);
+            try {
+                for (var buffered : rest) {
+                    if (buffered != END) {  // NOSONAR
+                        writer.write(buffered);
+                    } else if (thread.isAlive()) {
+                        // wątek czeka na END, a w buforze właśnie zwolniło się miejsce
+                        buffer.offer(END);
+                    }
+                }
+                if (line != null) {
+                    writer.write(line);
+                }
+                writer.flush();
+            } catch (IOException e) {
+                reportError(e);
+            }
+        }
+    }
+
+    private void drain() {
+        List<String> batch = new ArrayList<>(CAPACITY);
+        boolean running = true;
+        while (running) {
+            try {
+                batch.add(buffer.take());
+            } catch (InterruptedException e) {
+                // pozostałe i kolejne wiersze zapiszą wątki wywołujące write() i close()
+                Thread.currentThread().interrupt();
+                return;
+            }
+            buffer.drainTo(batch);
+            synchronized (writer) {
+                try {
+                    for (var line : batch) {
+                        if (line == END) {  // NOSONAR
+                            running = false;
+                        } else {
+                            writer.write(line);
+                        }
+                    }
+                    writer.flush();
+                } catch (IOException e) {
+                    reportError(e);
+                }
+            }
+            batch.clear();
+        }
+    }
+
+    /**
+     * Log file errors are reported once, the console is the only place left to report them.
+     */
+    private void reportError(IOException e) {
+        if (!errorReported) {
+            errorReported = true;
+            System.err.println("Failed to write the log file, further errors are not reported: " + e.getMessage());
+        }
+    }
+}
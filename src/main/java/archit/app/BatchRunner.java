@@ -0,0 +1,195 @@
+package archit.app;
+
+import archit.app.ArchitMain.ExportFormat;
+import archit.common.Interpreter;
+import archit.common.ScriptRun;
+import archit.common.natives.GeometryNatives;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Runs many scripts at once, each in its own {@link ScriptRun} on a pool sized to the number of cores,
+ * and exports their results. All runs share one interpreter, whose standard library is only read
+ * once the natives are registered. Outputs are named by the path of the script relative to the searched
+ * folder, so that scripts with the same name in different subfolders do not overwrite each other.
+ */
+public class BatchRunner {
+    private static final long SLICE_NANOS = TimeUnit.MILLISECONDS.toNanos(50);
+    private static final String GLOB_CHARACTERS = "*?[{";
+
+    public record Result(Path script, boolean success, long wallNanos, long instructions, long blocks) {}
+
+    private final Interpreter interpreter;
+    private final String args;
+    private final ExportFormat format;
+
+    public BatchRunner(Interpreter interpreter, String args, ExportFormat format) {
+        this.interpreter = interpreter;
+        this.args = args;
+        this.format = format;
+    }
+
+    /**
+     * @param base folder the scripts were found in, see {@link #searchBase}
+     * @return results in the order of the given scripts
+     */
+    public List<Result> run(Path base, List<Path> scripts) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (var script : scripts) {
+                futures.add(executor.submit(() -> runScript(script, outputName(base, script))));
+            }
+            List<Result> results = new ArrayList<>();
+            for (var future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    // błędy skryptów są obsługiwane w ScriptRun, tu trafiają tylko błędy samej aplikacji
+                    interpreter.getLogger().systemError(e.getCause(), "Batch run failed");
+                    results.add(new Result(scripts.get(results.size()), false, 0, 0, 0));
+                }
+            }
+            return results;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private Result runScript(Path script, Path outputName) {
+        long start = System.nanoTime();
+        var store = new VoxelStore();
+        var run = new ScriptRun(interpreter, script, store, args);
+        boolean success = run.startExecution();
+        // cały wątek należy do jednego skryptu, więc planista nie jest potrzebny
+        while (success && !run.isStopped()) {
+            run.runNextTick(SLICE_NANOS);
+        }
+        if (success) {
+            success = ArchitMain.export(run, format, outputName);
+        }
+        return new Result(script, success, System.nanoTime() - start, run.getInstructionCount(), store.getBlockCount());
+    }
+
+    /**
+     * @return path of the script relative to the base, without the extension, e.g. {@code houses/small}
+     */
+    static Path outputName(Path base, Path script) {
+        var relative = base.relativize(script);
+        var name = relative.getFileName().toString().replaceFirst("\\.\\w+$", "");
+        return relative.getParent() == null ? Path.of(name) : relative.getParent().resolve(name);
+    }
+
+    /**
+     * @return the folder searched for the given pattern of {@link #findScripts} - the directory itself,
+     *         the folder of a single file or the part of a glob before its first special character
+     */
+    public static Path searchBase(String pattern) {
+        int glob = firstGlobCharacter(pattern);
+        if (glob < 0) {
+            var path = Path.of(pattern);
+            if (Files.isDirectory(path)) {
+                return path;
+            }
+            return path.getParent() == null ? Path.of("") : path.getParent();
+        }
+        int separator = Math.max(pattern.lastIndexOf('/', glob), pattern.lastIndexOf('\\', glob));
+        return separator < 0 ? Path.of(".") : Path.of(pattern.substring(0, separator + 1));
+    }
+
+    private static int firstGlobCharacter(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            if (GLOB_CHARACTERS.indexOf(pattern.charAt(i)) >= 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * @param pattern a directory (all its {@code .archit} files), a single file or a glob such as
+     *                {@code scripts/**.archit}
+     */
+    public static List<Path> findScripts(String pattern) throws IOException {
+        if (firstGlobCharacter(pattern) < 0) {
+            var path = Path.of(pattern);
+            if (!Files.isDirectory(path)) {
+                return List.of(path);
+            }
+            try (Stream<Path> files = Files.list(path)) {
+                return files.filter(file -> file.toString().endsWith(".archit")).sorted().toList();
+            }
+        }
+
+        // przeszukiwany jest tylko folder poprzedzający pierwszy znak wzorca
+        var base = searchBase(pattern);
+        boolean relative = base.equals(Path.of("."));
+        var matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        try (Stream<Path> files = Files.walk(base)) {
+            return files.map(file -> relative ? base.relativize(file) : file)
+                        .filter(file -> Files.isRegularFile(file) && matcher.matches(file))
+                        .sorted()
+                        .toList();
+        }
+    }
+
+    public static void printSummary(List<Result> results, long totalNanos, PrintStream out) {
+        int nameWidth = "Script".length();
+        for (var result : results) {
+            nameWidth = Math.max(nameWidth, result.script().toString().length());
+        }
+        String row = "%-" + nameWidth + "s  %-6s  %10s  %14s  %12s%n";
+        out.printf(row, "Script", "Status", "Time [ms]", "Instructions", "Blocks");
+        int failed = 0;
+        for (var result : results) {
+            out.printf(
+                row,
+                result.script(),
+                result.success() ? "OK" : "FAILED",
+                TimeUnit.NANOSECONDS.toMillis(result.wallNanos()),
+                result.instructions(),
+                result.blocks()
+            );
+            failed += result.success() ? 0 : 1;
+        }
+        out.printf(
+            "%d scripts, %d failed, %d ms in total%n", results.size(), failed, TimeUnit.NANOSECONDS.toMillis(totalNanos)
+        );
+    }
+
+    static void runFromCommandLine(String pattern, String args, ExportFormat format) {
+        var logging = ArchitMain.createLogging();
+        if (pattern == null) {
+            logging.scriptError(null, "HINT: Pass a directory or a glob of scripts after --batch.");
+            logging.close();
+            return;
+        }
+        var interpreter = new Interpreter(logging);
+        var platform = new PlatformNatives();
+        interpreter.getStandardLibrary().registerNatives(platform, new GeometryNatives(platform));
+
+        try {
+            var scripts = findScripts(pattern);
+            long start = System.nanoTime();
+            var results = new BatchRunner(interpreter, args, format).run(searchBase(pattern), scripts);
+            printSummary(results, System.nanoTime() - start, System.out);
+        } catch (IOException e) {
+            logging.scriptError(null, "Failed to list scripts: {}", e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            logging.close();
+        }
+    }
+}
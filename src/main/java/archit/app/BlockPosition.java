@@ -1,3 +0,0 @@
-package archit.app;
-
-public record BlockPosition(int x, int y, int z) {}
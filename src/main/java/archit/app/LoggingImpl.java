@@ -2,7 +2,7 @@ package archit.app;
 
 import archit.common.Logging;
 import archit.common.ScriptRun;
-import java.io.BufferedWriter;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
@@ -14,78 +14,79 @@ import org.fusesource.jansi.Ansi.Color;
 
 import static org.fusesource.jansi.Ansi.*;
 
-public class LoggingImpl implements Logging {
-    private final BufferedWriter logger;
+public class LoggingImpl implements Logging, Closeable {
+    public enum Level {
+        TRACE,
+        INFO,
+        ERROR
+    }
+
+    private final AsyncLogWriter logger;
+    private final Level level;
     private static final Color INFO_COLOR = Color.CYAN;
     private static final Color ERROR_COLOR = Color.RED;
     private static final Color PARAM_COLOR = Color.YELLOW;
 
-    public LoggingImpl(File logFile) {
-        BufferedWriter writer;
+    public LoggingImpl(File logFile, Level level) {
+        Writer writer;
         try {
-            writer = new BufferedWriter(new FileWriter(logFile));
+            writer = new FileWriter(logFile);
         } catch (IOException e) {
-            writer = new BufferedWriter(Writer.nullWriter());
+            writer = Writer.nullWriter();
+        }
+        logger = new AsyncLogWriter(writer);
+        this.level = level;
+    }
+
+    public LoggingImpl(File logFile) {
+        this(logFile, Level.INFO);
+    }
+
+    @Override
+    public boolean isTraceEnabled() {
+        return level == Level.TRACE;
+    }
+
+    @Override
+    public void systemTrace(String format, Object... objects) {
+        if (isTraceEnabled()) {
+            var text = parseFormatAndSubstitute(format, objects).stream().collect(Collectors.joining());
+            logger.write("[TRACE] " + text + '\n');
         }
-        logger = writer;
     }
 
     @Override
     public void systemInfo(String format, Object... objects) {
-        var text = parseFormatAndSubstitute(format, objects).stream().collect(Collectors.joining());
-        try {
-            logger.append("[INFO] ").append(text).append('\n');
-            logger.flush();
-        } catch (IOException e) {
-            // No-op
+        if (level.compareTo(Level.INFO) <= 0) {
+            var text = parseFormatAndSubstitute(format, objects).stream().collect(Collectors.joining());
+            logger.write("[INFO] " + text + '\n');
         }
     }
 
     @Override
     public void systemError(String format, Object... objects) {
         var text = parseFormatAndSubstitute(format, objects).stream().collect(Collectors.joining());
-        try {
-            logger.append("[ERROR] ").append(text).append('\n');
-            logger.flush();
-        } catch (IOException e) {
-            // No-op
-        }
+        logger.write("[ERROR] " + text + '\n');
     }
 
     @Override
     public void systemError(Throwable t, String format, Object... objects) {
         var text = parseFormatAndSubstitute(format, objects).stream().collect(Collectors.joining());
-        try {
-            logger.append("[ERROR] ").append(text).append('\n');
-            var errorRepr = new StringWriter();
-            t.printStackTrace(new PrintWriter(errorRepr));
-            logger.append(errorRepr.toString()).append('\n');
-            logger.flush();
-        } catch (IOException e) {
-            // No-op
-        }
+        var errorRepr = new StringWriter();
+        t.printStackTrace(new PrintWriter(errorRepr));
+        logger.write("[ERROR] " + text + '\n' + errorRepr + '\n');
     }
 
     @Override
     public void scriptPrint(ScriptRun run, String text) {
-        try {
-            logger.append("[STDOUT] > ").append(text).append('\n');
-            logger.flush();
-        } catch (IOException e) {
-            // No-op
-        }
+        logger.write("[STDOUT] > " + text + '\n');
         System.out.print(ansi().fg(INFO_COLOR).a("> ").a(text).a('\n').reset());
     }
 
     @Override
     public void scriptError(ScriptRun run, String format, Object... objects) {
         var strings = parseFormatAndSubstitute(format, objects);
-        try {
-            logger.append("[STDERR] ").append(strings.stream().collect(Collectors.joining())).append('\n');
-            logger.flush();
-        } catch (IOException e) {
-            // No-op
-        }
+        logger.write("[STDERR] " + strings.stream().collect(Collectors.joining()) + '\n');
         for (int i = 0; i < strings.size(); i++) {
             var color = (i % 2 == 0) ? ERROR_COLOR : PARAM_COLOR;
             System.out.print(ansi().fg(color).a(strings.get(i)));
@@ -97,4 +98,12 @@ public class LoggingImpl implements Logging {
     public void scriptDebug(ScriptRun run, String format, Object... objects) {
         systemInfo(format, objects);
     }
+
+    /**
+     * Waits until every logged line is written to the file.
+     */
+    @Override
+    public void close() {
+        logger.close();
+    }
 }
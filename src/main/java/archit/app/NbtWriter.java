@@ -0,0 +1,148 @@
+package archit.app;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming writer of NBT. Tags are written as soon as they are declared, so arrays and lists
+ * must be given their length up front - in exchange, no tree of the whole document is ever held in memory.
+ */
+public class NbtWriter implements Closeable {
+    public static final byte TAG_INT = 3;
+    public static final byte TAG_STRING = 8;
+    public static final byte TAG_COMPOUND = 10;
+    private static final byte TAG_END = 0;
+    private static final byte TAG_BYTE = 1;
+    private static final byte TAG_SHORT = 2;
+    private static final byte TAG_LONG = 4;
+    private static final byte TAG_BYTE_ARRAY = 7;
+    private static final byte TAG_LIST = 9;
+    private static final byte TAG_INT_ARRAY = 11;
+    private static final byte TAG_LONG_ARRAY = 12;
+
+    private final DataOutputStream out;
+
+    /**
+     * @param stream stream receiving the NBT as is, already wrapped in compression if needed
+     */
+    public NbtWriter(OutputStream stream) {
+        this.out = new DataOutputStream(new BufferedOutputStream(stream, 1 << 16));
+    }
+
+    /**
+     * Writer of gzip-compressed NBT, as used by schematic and structure files.
+     */
+    public static NbtWriter gzip(OutputStream stream) throws IOException {
+        return new NbtWriter(new GZIPOutputStream(stream, 1 << 16));
+    }
+
+    private void header(byte type, String name) throws IOException {
+        out.writeByte(type);
+        out.writeUTF(name);
+    }
+
+    public void beginCompound(String name) throws IOException {
+        header(TAG_COMPOUND, name);
+    }
+
+    public void endCompound() throws IOException {
+        out.writeByte(TAG_END);
+    }
+
+    public void writeByte(String name, int value) throws IOException {
+        header(TAG_BYTE, name);
+        out.writeByte(value);
+    }
+
+    public void writeShort(String name, int value) throws IOException {
+        header(TAG_SHORT, name);
+        out.writeShort(value);
+    }
+
+    public void writeInt(String name, int value) throws IOException {
+        header(TAG_INT, name);
+        out.writeInt(value);
+    }
+
+    public void writeLong(String name, long value) throws IOException {
+        header(TAG_LONG, name);
+        out.writeLong(value);
+    }
+
+    public void writeString(String name, String value) throws IOException {
+        header(TAG_STRING, name);
+        out.writeUTF(value);
+    }
+
+    public void writeIntArray(String name, int... values) throws IOException {
+        header(TAG_INT_ARRAY, name);
+        out.writeInt(values.length);
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    public void writeLongArray(String name, long[] values) throws IOException {
+        header(TAG_LONG_ARRAY, name);
+        out.writeInt(values.length);
+        for (long value : values) {
+            out.writeLong(value);
+        }
+    }
+
+    /**
+     * Starts a byte array, its content must then be written with {@link #writeRawByte} or {@link #writeVarInt}.
+     */
+    public void beginByteArray(String name, int length) throws IOException {
+        header(TAG_BYTE_ARRAY, name);
+        out.writeInt(length);
+    }
+
+    /**
+     * Starts a list. Int elements are written with {@link #writeIntElement}, compound elements have no header
+     * and are just their named tags closed with {@link #endCompound()}.
+     */
+    public void beginList(String name, byte elementType, int length) throws IOException {
+        header(TAG_LIST, name);
+        out.writeByte(length == 0 ? TAG_END : elementType);
+        out.writeInt(length);
+    }
+
+    public void writeIntElement(int value) throws IOException {
+        out.writeInt(value);
+    }
+
+    public void writeStringElement(String value) throws IOException {
+        out.writeUTF(value);
+    }
+
+    public void writeRawByte(int value) throws IOException {
+        out.writeByte(value);
+    }
+
+    public void writeVarInt(int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    public static int varIntLength(int value) {
+        int length = 1;
+        while ((value & ~0x7F) != 0) {
+            length++;
+            value >>>= 7;
+        }
+        return length;
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,320 @@
+package archit.app;
+
+import archit.common.Material;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exports a {@link VoxelStore} as a Wavefront OBJ model with a matching MTL file. Only faces between a block
+ * and air are exported, coplanar faces of the same material are merged into rectangles (greedy meshing),
+ * vertices are shared between faces and faces are grouped by material.
+ */
+public class ObjExporter {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int PADDED = 18;  // sekcja wraz z warstwą bloków sąsiednich sekcji z każdej strony
+
+    private final VoxelStore store;
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+
+    // wierzchołki - tablica haszująca z adresowaniem otwartym, wartości to indeksy OBJ (od 1)
+    private int[] vertexX = new int[1024];
+    private int[] vertexY = new int[1024];
+    private int[] vertexZ = new int[1024];
+    private int[] vertexIndex = new int[1024];
+    private int vertexCount = 0;
+
+    private final Map<Material, FaceList> faces = new LinkedHashMap<>();
+
+    private final Material[] padded = new Material[PADDED * PADDED * PADDED];
+    private final Material[] mask = new Material[16 * 16];
+    // współrzędne indeksowane numerem osi, używane ponownie dla każdej ściany
+    private final int[] local = new int[3];
+    private final int[] base = new int[3];
+    private final int[] corner = new int[3];
+    private final int[] quad = new int[4];
+    private final int[] from = new int[3];
+    private final int[] to = new int[3];
+
+    private static final class FaceList {
+        private int[] data = new int[64];
+        private int size = 0;
+
+        void add(int a, int b, int c, int d) {
+            if (size + 4 > data.length) {
+                data = Arrays.copyOf(data, data.length * 2);
+            }
+            data[size++] = a;
+            data[size++] = b;
+            data[size++] = c;
+            data[size++] = d;
+        }
+    }
+
+    private ObjExporter(VoxelStore store, OutputStream out) {
+        this.store = store;
+        this.out = out;
+    }
+
+    public static void export(VoxelStore store, Path objFile, Path mtlFile) throws IOException {
+        try (var out = Files.newOutputStream(objFile)) {
+            var exporter = new ObjExporter(store, out);
+            exporter.writeObj(mtlFile.getFileName().toString());
+            try (var mtl = Files.newOutputStream(mtlFile)) {
+                exporter.writeMtl(mtl);
+            }
+        }
+    }
+
+    private void writeObj(String mtlName) throws IOException {
+        write("mtllib ").write(mtlName).write('\n');
+        store.forEachSection(this::meshSection);
+        for (var entry : faces.entrySet()) {
+            write("usemtl ").write(entry.getKey().toString()).write('\n');
+            var list = entry.getValue();
+            for (int i = 0; i < list.size; i += 4) {
+                write('f').write(' ').write(list.data[i]).write(' ').write(list.data[i + 1]);
+                write(' ').write(list.data[i + 2]).write(' ').write(list.data[i + 3]).write('\n');
+            }
+        }
+        flush();
+    }
+
+    private void writeMtl(OutputStream mtl) throws IOException {
+        var sb = new StringBuilder();
+        for (var material : faces.keySet()) {
+            // stały, pseudolosowy kolor wyznaczony z nazwy materiału
+            int hash = material.toString().hashCode() * 0x9E3779B1;
+            sb.append("newmtl ").append(material).append('\n');
+            sb.append("Kd ")
+                .append(((hash >>> 16) & 0xFF) / 255f).append(' ')
+                .append(((hash >>> 8) & 0xFF) / 255f).append(' ')
+                .append((hash & 0xFF) / 255f).append('\n');
+        }
+        mtl.write(sb.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void meshSection(int sectionX, int sectionY, int sectionZ, VoxelSection section) throws IOException {
+        fillPadded(sectionX, sectionY, sectionZ, section);
+        base[0] = sectionX << 4;
+        base[1] = sectionY << 4;
+        base[2] = sectionZ << 4;
+        for (int axis = 0; axis < 3; axis++) {
+            int uAxis = (axis + 1) % 3;
+            int vAxis = (axis + 2) % 3;
+            for (int sign = -1; sign <= 1; sign += 2) {
+                for (int layer = 0; layer < 16; layer++) {
+                    // maska widocznych ścian w tej warstwie
+                    for (int v = 0; v < 16; v++) {
+                        for (int u = 0; u < 16; u++) {
+                            local[axis] = layer;
+                            local[uAxis] = u;
+                            local[vAxis] = v;
+                            var material = paddedAt(local[0], local[1], local[2]);
+                            local[axis] += sign;
+                            boolean visible = material != null && paddedAt(local[0], local[1], local[2]) == null;
+                            mask[v * 16 + u] = visible ? material : null;
+                        }
+                    }
+                    int plane = layer + (sign > 0 ? 1 : 0);
+                    mergeMask(axis, uAxis, vAxis, sign, plane);
+                }
+            }
+        }
+    }
+
+    /**
+     * Greedy meshing of a single layer - every rectangle of equal materials becomes one quad.
+     */
+    private void mergeMask(int axis, int uAxis, int vAxis, int sign, int plane) throws IOException {
+        for (int v = 0; v < 16; v++) {
+            for (int u = 0; u < 16;) {
+                var material = mask[v * 16 + u];
+                if (material == null) {
+                    u++;
+                    continue;
+                }
+                int width = 1;
+                while (u + width < 16 && mask[v * 16 + u + width] == material) {
+                    width++;
+                }
+                int height = 1;
+                grow:
+                while (v + height < 16) {
+                    for (int i = 0; i < width; i++) {
+                        if (mask[(v + height) * 16 + u + i] != material) {
+                            break grow;
+                        }
+                    }
+                    height++;
+                }
+                for (int j = 0; j < height; j++) {
+                    Arrays.fill(mask, (v + j) * 16 + u, (v + j) * 16 + u + width, null);
+                }
+
+                corner[axis] = base[axis] + plane;
+                // narożniki (u, v), (u + w, v), (u + w, v + h), (u, v + h)
+                for (int i = 0; i < 4; i++) {
+                    corner[uAxis] = base[uAxis] + u + (i == 1 || i == 2 ? width : 0);
+                    corner[vAxis] = base[vAxis] + v + (i >= 2 ? height : 0);
+                    quad[i] = vertex(corner[0], corner[1], corner[2]);
+                }
+                // kolejność przeciwna do ruchu wskazówek zegara patrząc od zewnątrz bryły
+                var list = faces.computeIfAbsent(material, m -> new FaceList());
+                if (sign > 0) {
+                    list.add(quad[0], quad[1], quad[2], quad[3]);
+                } else {
+                    list.add(quad[0], quad[3], quad[2], quad[1]);
+                }
+                u += width;
+            }
+        }
+    }
+
+    private void fillPadded(int sectionX, int sectionY, int sectionZ, VoxelSection section) {
+        Arrays.fill(padded, null);
+        for (int index = 0; index < VoxelSection.SIZE; index++) {
+            padded[paddedIndex(index & 15, index >> 8, (index >> 4) & 15)] = section.get(index);
+        }
+        // tylko warstwy przylegające do ścian sekcji - krawędzie i narożniki nie wpływają na widoczność
+        copyNeighbor(store.sectionAt(sectionX - 1, sectionY, sectionZ), 0, -1, 15);
+        copyNeighbor(store.sectionAt(sectionX + 1, sectionY, sectionZ), 0, 16, 0);
+        copyNeighbor(store.sectionAt(sectionX, sectionY - 1, sectionZ), 1, -1, 15);
+        copyNeighbor(store.sectionAt(sectionX, sectionY + 1, sectionZ), 1, 16, 0);
+        copyNeighbor(store.sectionAt(sectionX, sectionY, sectionZ - 1), 2, -1, 15);
+        copyNeighbor(store.sectionAt(sectionX, sectionY, sectionZ + 1), 2, 16, 0);
+    }
+
+    private void copyNeighbor(VoxelSection neighbor, int axis, int target, int source) {
+        if (neighbor == null) {
+            return;
+        }
+        for (int a = 0; a < 16; a++) {
+            for (int b = 0; b < 16; b++) {
+                from[axis] = source;
+                to[axis] = target;
+                from[(axis + 1) % 3] = to[(axis + 1) % 3] = a;
+                from[(axis + 2) % 3] = to[(axis + 2) % 3] = b;
+                padded[paddedIndex(to[0], to[1], to[2])] = neighbor.get(VoxelSection.index(from[0], from[1], from[2]));
+            }
+        }
+    }
+
+    private Material paddedAt(int x, int y, int z) {
+        return padded[paddedIndex(x, y, z)];
+    }
+
+    private static int paddedIndex(int x, int y, int z) {
+        return (x + 1) + PADDED * ((z + 1) + PADDED * (y + 1));
+    }
+
+    /**
+     * @return OBJ index of the vertex, written to the output the first time it is used
+     */
+    private int vertex(int x, int y, int z) throws IOException {
+        int mask = vertexIndex.length - 1;
+        int slot = hash(x, y, z) & mask;
+        while (vertexIndex[slot] != 0) {
+            if (vertexX[slot] == x && vertexY[slot] == y && vertexZ[slot] == z) {
+                return vertexIndex[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if ((vertexCount + 1) * 4 > vertexIndex.length * 3) {
+            growVertices();
+            return vertex(x, y, z);
+        }
+        vertexX[slot] = x;
+        vertexY[slot] = y;
+        vertexZ[slot] = z;
+        vertexIndex[slot] = ++vertexCount;
+        write('v').write(' ').write(x).write(' ').write(y).write(' ').write(z).write('\n');
+        return vertexCount;
+    }
+
+    private void growVertices() {
+        int[] oldX = vertexX, oldY = vertexY, oldZ = vertexZ, oldIndex = vertexIndex;
+        int capacity = oldIndex.length * 2;
+        vertexX = new int[capacity];
+        vertexY = new int[capacity];
+        vertexZ = new int[capacity];
+        vertexIndex = new int[capacity];
+        for (int i = 0; i < oldIndex.length; i++) {
+            if (oldIndex[i] != 0) {
+                int slot = hash(oldX[i], oldY[i], oldZ[i]) & (capacity - 1);
+                while (vertexIndex[slot] != 0) {
+                    slot = (slot + 1) & (capacity - 1);
+                }
+                vertexX[slot] = oldX[i];
+                vertexY[slot] = oldY[i];
+                vertexZ[slot] = oldZ[i];
+                vertexIndex[slot] = oldIndex[i];
+            }
+        }
+    }
+
+    private static int hash(int x, int y, int z) {
+        int h = x * 0x9E3779B1 ^ y * 0x85EBCA77 ^ z * 0xC2B2AE3D;
+        return h ^ (h >>> 16);
+    }
+
+    // zapis prosto do bufora bajtów, bez pośrednich obiektów String
+
+    private ObjExporter write(char c) throws IOException {
+        return writeByte((byte) c);
+    }
+
+    private ObjExporter writeByte(byte b) throws IOException {
+        if (position == BUFFER_SIZE) {
+            flush();
+        }
+        buffer[position++] = b;
+        return this;
+    }
+
+    /**
+     * Names of the MTL file and of materials, in UTF-8 like the MTL file - the only strings, so encoding
+     * them does not matter for the export as a whole.
+     */
+    private ObjExporter write(String text) throws IOException {
+        for (byte b : text.getBytes(StandardCharsets.UTF_8)) {
+            writeByte(b);
+        }
+        return this;
+    }
+
+    private ObjExporter write(int value) throws IOException {
+        if (position + 11 > BUFFER_SIZE) {  // najdłuższa liczba int ze znakiem
+            flush();
+        }
+        long v = value;
+        if (v < 0) {
+            buffer[position++] = '-';
+            v = -v;
+        }
+        int start = position;
+        do {
+            buffer[position++] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+        // cyfry zostały zapisane od końca
+        for (int i = start, j = position - 1; i < j; i++, j--) {
+            byte tmp = buffer[i];
+            buffer[i] = buffer[j];
+            buffer[j] = tmp;
+        }
+        return this;
+    }
+
+    private void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+    }
+}
@@ -2,36 +2,36 @@ package archit.app;
 
 import archit.common.Material;
 import archit.common.ScriptRun;
+import archit.common.natives.BlockPlacer;
 import archit.common.stdlib.ArchitNative;
-import java.util.Map;
 
-public class PlatformNatives {
-    @SuppressWarnings("unchecked")
-    private Map<BlockPosition, Material> getMap(ScriptRun run) {
-        return (Map<BlockPosition, Material>) run.getMetadata();
+public class PlatformNatives implements BlockPlacer {
+    private VoxelStore getStore(ScriptRun run) {
+        return (VoxelStore) run.getMetadata();
     }
 
     @ArchitNative("native place(block: material);")
     public void place(ScriptRun run, Material block) {
-        var pos = new BlockPosition(run.getCursorX(), run.getCursorY(), run.getCursorZ());
+        place(run, run.getCursorX(), run.getCursorY(), run.getCursorZ(), block);
+    }
 
-        getMap(run).put(pos, block);
+    @Override
+    public void place(ScriptRun run, int x, int y, int z, Material block) {
+        getStore(run).set(x, y, z, block);
 
-        run.getInterpreter().getLogger().systemInfo(
-                "PLACE {} at {}, {}, {}", block, pos.x(), pos.y(), pos.z()
-        );
+        var logger = run.getInterpreter().getLogger();
+        if (logger.isTraceEnabled()) {
+            logger.systemTrace("PLACE {} at {}, {}, {}", block, x, y, z);
+        }
     }
 
     @ArchitNative("native check(): material;")
     public Material check(ScriptRun run) {
-        run.getInterpreter().getLogger().systemInfo(
-                "CHECK at {}, {}, {}", run.getCursorX(), run.getCursorY(), run.getCursorZ()
-        );
-
-        var pos = new BlockPosition(
-                run.getCursorX(), run.getCursorY(), run.getCursorZ()
-        );
+        var logger = run.getInterpreter().getLogger();
+        if (logger.isTraceEnabled()) {
+            logger.systemTrace("CHECK at {}, {}, {}", run.getCursorX(), run.getCursorY(), run.getCursorZ());
+        }
 
-        return getMap(run).getOrDefault(pos, new Material("air"));
+        return getStore(run).get(run.getCursorX(), run.getCursorY(), run.getCursorZ());
     }
 }
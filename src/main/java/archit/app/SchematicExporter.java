@@ -0,0 +1,144 @@
+package archit.app;
+
+import archit.common.Material;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exports a {@link VoxelStore} as a Sponge schematic (version 2, {@code .schem}) or a vanilla structure
+ * ({@code .nbt}). Both formats are streamed: a first pass over the store collects the bounds and the palette,
+ * the second one writes block data directly to the compressed output.
+ */
+public final class SchematicExporter {
+    private SchematicExporter() {}
+
+    public static final int DATA_VERSION = 4325;  // Minecraft 1.21.5
+    private static final Material AIR = Material.of("air");
+
+    private static final class Summary {
+        int minX = Integer.MAX_VALUE, minY = Integer.MAX_VALUE, minZ = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE, maxY = Integer.MIN_VALUE, maxZ = Integer.MIN_VALUE;
+        final Map<Material, Integer> palette = new LinkedHashMap<>();
+        final Map<Material, Long> counts = new LinkedHashMap<>();
+        long blocks = 0;
+
+        int width() {
+            return maxX - minX + 1;
+        }
+
+        int height() {
+            return maxY - minY + 1;
+        }
+
+        int length() {
+            return maxZ - minZ + 1;
+        }
+    }
+
+    private static Summary summarize(VoxelStore store, boolean withAir) {
+        var summary = new Summary();
+        if (withAir) {
+            summary.palette.put(AIR, 0);
+        }
+        store.forEach((x, y, z, material) -> {
+            summary.minX = Math.min(summary.minX, x);
+            summary.minY = Math.min(summary.minY, y);
+            summary.minZ = Math.min(summary.minZ, z);
+            summary.maxX = Math.max(summary.maxX, x);
+            summary.maxY = Math.max(summary.maxY, y);
+            summary.maxZ = Math.max(summary.maxZ, z);
+            summary.palette.putIfAbsent(material, summary.palette.size());
+            summary.counts.merge(material, 1L, Long::sum);
+            summary.blocks++;
+        });
+        if (summary.blocks == 0) {
+            summary.minX = summary.minY = summary.minZ = 0;
+            summary.maxX = summary.maxY = summary.maxZ = 0;
+        }
+        return summary;
+    }
+
+    public static void exportSponge(VoxelStore store, Path file) throws IOException {
+        var summary = summarize(store, true);
+        if (summary.width() > 0xFFFF || summary.height() > 0xFFFF || summary.length() > 0xFFFF) {
+            throw new IOException("Build is too large for a schematic");
+        }
+        long volume = (long) summary.width() * summary.height() * summary.length();
+        // długość danych bloków znana z góry: jeden bajt na każde powietrze, reszta według indeksu w palecie
+        long dataLength = volume - summary.blocks;
+        for (var entry : summary.counts.entrySet()) {
+            dataLength += entry.getValue() * NbtWriter.varIntLength(summary.palette.get(entry.getKey()));
+        }
+        if (dataLength > Integer.MAX_VALUE) {
+            throw new IOException("Build is too large for a schematic");
+        }
+
+        try (var nbt = NbtWriter.gzip(Files.newOutputStream(file))) {
+            nbt.beginCompound("Schematic");
+            nbt.writeInt("Version", 2);
+            nbt.writeInt("DataVersion", DATA_VERSION);
+            nbt.writeShort("Width", summary.width());
+            nbt.writeShort("Height", summary.height());
+            nbt.writeShort("Length", summary.length());
+            nbt.writeIntArray("Offset", summary.minX, summary.minY, summary.minZ);
+            nbt.writeInt("PaletteMax", summary.palette.size());
+            nbt.beginCompound("Palette");
+            for (var entry : summary.palette.entrySet()) {
+                nbt.writeInt(entry.getKey().toString(), entry.getValue());
+            }
+            nbt.endCompound();
+
+            // kolejność wymagana przez format: x najszybciej, potem z, potem y
+            nbt.beginByteArray("BlockData", (int) dataLength);
+            for (int y = summary.minY; y <= summary.maxY; y++) {
+                for (int z = summary.minZ; z <= summary.maxZ; z++) {
+                    for (int x = summary.minX; x <= summary.maxX; x++) {
+                        nbt.writeVarInt(summary.palette.get(store.get(x, y, z)));
+                    }
+                }
+            }
+            nbt.endCompound();
+        }
+    }
+
+    /**
+     * Only placed blocks are written, so loading the structure leaves the rest of the area untouched.
+     */
+    public static void exportStructure(VoxelStore store, Path file) throws IOException {
+        var summary = summarize(store, false);
+        if (summary.blocks > Integer.MAX_VALUE) {
+            throw new IOException("Build is too large for a structure");
+        }
+
+        try (var nbt = NbtWriter.gzip(Files.newOutputStream(file))) {
+            nbt.beginCompound("");
+            nbt.writeInt("DataVersion", DATA_VERSION);
+            nbt.beginList("size", NbtWriter.TAG_INT, 3);
+            nbt.writeIntElement(summary.width());
+            nbt.writeIntElement(summary.height());
+            nbt.writeIntElement(summary.length());
+
+            nbt.beginList("palette", NbtWriter.TAG_COMPOUND, summary.palette.size());
+            for (var material : summary.palette.keySet()) {
+                nbt.writeString("Name", material.toString());
+                nbt.endCompound();
+            }
+
+            nbt.beginList("blocks", NbtWriter.TAG_COMPOUND, (int) summary.blocks);
+            store.forEach((x, y, z, material) -> {
+                nbt.beginList("pos", NbtWriter.TAG_INT, 3);
+                nbt.writeIntElement(x - summary.minX);
+                nbt.writeIntElement(y - summary.minY);
+                nbt.writeIntElement(z - summary.minZ);
+                nbt.writeInt("state", summary.palette.get(material));
+                nbt.endCompound();
+            });
+
+            nbt.beginList("entities", NbtWriter.TAG_COMPOUND, 0);
+            nbt.endCompound();
+        }
+    }
+}
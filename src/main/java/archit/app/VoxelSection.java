@@ -0,0 +1,115 @@
+package archit.app;
+
+import archit.common.Material;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A 16x16x16 cube of blocks, stored as indices into a palette of the materials used in it.
+ * Indices are bit-packed with the smallest width (1, 2, 4, 8 or 16 bits) able to address the palette,
+ * so a section of a single material takes 512 bytes. Palette entry 0 is always air.
+ */
+final class VoxelSection {
+    static final int SIZE = 16 * 16 * 16;
+    private static final int LINEAR_SEARCH_LIMIT = 16;
+
+    private Material[] palette = new Material[2];
+    private int paletteSize = 1;
+    private Map<Material, Integer> paletteIndices;  // tylko dla dużych palet
+    private int bits = 1;
+    private long[] data = new long[SIZE / 64];
+    private int blockCount = 0;
+
+    static int index(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    /**
+     * @return material at the given index, null for air
+     */
+    Material get(int index) {
+        return palette[read(index)];
+    }
+
+    /**
+     * @param material material to set, null for air
+     */
+    void set(int index, Material material) {
+        int value = material == null ? 0 : paletteIndex(material);
+        int previous = read(index);
+        if (previous == value) {
+            return;
+        }
+        if (previous == 0) {
+            blockCount++;
+        } else if (value == 0) {
+            blockCount--;
+        }
+        write(index, value);
+    }
+
+    /**
+     * @return number of blocks other than air
+     */
+    int getBlockCount() {
+        return blockCount;
+    }
+
+    private int read(int index) {
+        int perLong = 64 / bits;
+        int shift = (index % perLong) * bits;
+        return (int) ((data[index / perLong] >>> shift) & ((1L << bits) - 1));
+    }
+
+    private void write(int index, int value) {
+        int perLong = 64 / bits;
+        int shift = (index % perLong) * bits;
+        long mask = ((1L << bits) - 1) << shift;
+        data[index / perLong] = (data[index / perLong] & ~mask) | ((long) value << shift);
+    }
+
+    private int paletteIndex(Material material) {
+        if (paletteIndices != null) {
+            var found = paletteIndices.get(material);
+            if (found != null) {
+                return found;
+            }
+        } else {
+            for (int i = 1; i < paletteSize; i++) {
+                if (palette[i] == material) {  // materiały są internowane
+                    return i;
+                }
+            }
+        }
+        if (paletteSize == 1 << bits) {
+            resize(bits * 2);
+        }
+        if (paletteSize == palette.length) {
+            palette = Arrays.copyOf(palette, palette.length * 2);
+        }
+        palette[paletteSize] = material;
+        if (paletteIndices == null && paletteSize >= LINEAR_SEARCH_LIMIT) {
+            paletteIndices = new HashMap<>();
+            for (int i = 1; i < paletteSize; i++) {
+                paletteIndices.put(palette[i], i);
+            }
+        }
+        if (paletteIndices != null) {
+            paletteIndices.put(material, paletteSize);
+        }
+        return paletteSize++;
+    }
+
+    private void resize(int newBits) {
+        var old = new int[SIZE];
+        for (int i = 0; i < SIZE; i++) {
+            old[i] = read(i);
+        }
+        bits = newBits;
+        data = new long[SIZE * bits / 64];
+        for (int i = 0; i < SIZE; i++) {
+            write(i, old[i]);
+        }
+    }
+}
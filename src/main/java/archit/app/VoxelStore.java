@@ -0,0 +1,153 @@
+package archit.app;
+
+import archit.common.Material;
+
+/**
+ * Sparse block storage of the standalone app. Blocks are grouped into palette-compressed
+ * {@link VoxelSection}s, kept in an open addressing hash table keyed by packed section coordinates.
+ */
+public class VoxelStore {
+    private static final Material AIR = Material.of("air");
+
+    @FunctionalInterface
+    public interface BlockVisitor<E extends Exception> {
+        void visit(int x, int y, int z, Material material) throws E;
+    }
+
+    private long[] keys = new long[64];
+    private VoxelSection[] sections = new VoxelSection[64];
+    private int sectionCount = 0;
+
+    public void set(int x, int y, int z, Material material) {
+        boolean air = material == AIR;
+        var section = section(key(x >> 4, y >> 4, z >> 4), !air);
+        if (section != null) {
+            section.set(VoxelSection.index(x, y, z), air ? null : material);
+        }
+    }
+
+    /**
+     * @return material at the given position, air if nothing was placed there
+     */
+    public Material get(int x, int y, int z) {
+        var section = section(key(x >> 4, y >> 4, z >> 4), false);
+        if (section == null) {
+            return AIR;
+        }
+        var material = section.get(VoxelSection.index(x, y, z));
+        return material == null ? AIR : material;
+    }
+
+    /**
+     * @return number of blocks other than air
+     */
+    public long getBlockCount() {
+        long count = 0;
+        for (var section : sections) {
+            if (section != null) {
+                count += section.getBlockCount();
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Visits every block other than air, section by section.
+     */
+    public <E extends Exception> void forEach(BlockVisitor<E> visitor) throws E {
+        forEachSection((sectionX, sectionY, sectionZ, section) -> {
+            int baseX = sectionX << 4, baseY = sectionY << 4, baseZ = sectionZ << 4;
+            for (int index = 0; index < VoxelSection.SIZE; index++) {
+                var material = section.get(index);
+                if (material != null) {
+                    visitor.visit(baseX + (index & 15), baseY + (index >> 8), baseZ + ((index >> 4) & 15), material);
+                }
+            }
+        });
+    }
+
+    @FunctionalInterface
+    interface SectionVisitor<E extends Exception> {
+        void visit(int sectionX, int sectionY, int sectionZ, VoxelSection section) throws E;
+    }
+
+    /**
+     * Visits every section containing at least one block other than air.
+     */
+    <E extends Exception> void forEachSection(SectionVisitor<E> visitor) throws E {
+        for (int i = 0; i < sections.length; i++) {
+            if (sections[i] != null && sections[i].getBlockCount() > 0) {
+                visitor.visit(sectionX(keys[i]), sectionY(keys[i]), sectionZ(keys[i]), sections[i]);
+            }
+        }
+    }
+
+    /**
+     * @return section at the given section coordinates, null if nothing was ever placed in it
+     */
+    VoxelSection sectionAt(int sectionX, int sectionY, int sectionZ) {
+        return section(key(sectionX, sectionY, sectionZ), false);
+    }
+
+    // współrzędne sekcji pakowane jak w Minecrafcie: 22 bity x, 22 bity z, 20 bitów y
+    static long key(int sectionX, int sectionY, int sectionZ) {
+        return ((long) (sectionX & 0x3FFFFF) << 42) | ((long) (sectionZ & 0x3FFFFF) << 20) | (sectionY & 0xFFFFF);
+    }
+
+    static int sectionX(long key) {
+        return (int) (key >> 42);
+    }
+
+    static int sectionY(long key) {
+        return (int) (key << 44 >> 44);
+    }
+
+    static int sectionZ(long key) {
+        return (int) (key << 22 >> 42);
+    }
+
+    private VoxelSection section(long key, boolean create) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (sections[slot] != null) {
+            if (keys[slot] == key) {
+                return sections[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!create) {
+            return null;
+        }
+        if ((sectionCount + 1) * 4 > keys.length * 3) {  // współczynnik wypełnienia 0.75
+            grow();
+            return section(key, true);
+        }
+        keys[slot] = key;
+        sections[slot] = new VoxelSection();
+        sectionCount++;
+        return sections[slot];
+    }
+
+    private void grow() {
+        var oldKeys = keys;
+        var oldSections = sections;
+        keys = new long[oldKeys.length * 2];
+        sections = new VoxelSection[oldSections.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldSections[i] != null) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (sections[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                sections[slot] = oldSections[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
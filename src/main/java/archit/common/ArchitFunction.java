@@ -1,7 +1,7 @@
 package archit.common;
 
+import archit.common.stdlib.NativeInvoker;
 import java.util.Arrays;
-import java.util.function.BiFunction;
 
 public record ArchitFunction(  // NOSONAR
     String name,
@@ -35,7 +35,7 @@ public record ArchitFunction(  // NOSONAR
         String name,
         Type returnType,
         Type[] params,
-        BiFunction<ScriptRun, Object[], Object> function,
+        NativeInvoker function,
         String... paramNames
     ) {
         return new ArchitFunction(name, returnType, params, true, function, paramNames);
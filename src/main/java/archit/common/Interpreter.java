@@ -1,13 +1,16 @@
 package archit.common;
 
 import archit.common.stdlib.StandardLibrary;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 public class Interpreter {
-    private final List<ScriptRun> currentRuns = new ArrayList<>();
+    // uruchomienia mogą się kończyć na wątkach roboczych planisty
+    private final List<ScriptRun> currentRuns = new CopyOnWriteArrayList<>();
     private final StandardLibrary standardLibrary;
     private final Logging logger;
+    private final Scheduler scheduler = new Scheduler(this);
+    private final ProgramCache programCache = new ProgramCache();
 
     public Interpreter(Logging logger) {
         this.logger = logger;
@@ -22,6 +25,14 @@ public class Interpreter {
         return logger;
     }
 
+    public Scheduler getScheduler() {
+        return scheduler;
+    }
+
+    public ProgramCache getProgramCache() {
+        return programCache;
+    }
+
     public StandardLibrary getStandardLibrary() {
         return standardLibrary;
     }
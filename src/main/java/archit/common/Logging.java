@@ -4,6 +4,16 @@ import java.util.ArrayList;
 import java.util.List;
 
 public interface Logging {
+    /**
+     * Per-block and similar high volume messages - callers should check {@link #isTraceEnabled()} first,
+     * so that disabled tracing does not even build the arguments.
+     */
+    default void systemTrace(String format, Object... objects) {}
+
+    default boolean isTraceEnabled() {
+        return false;
+    }
+
     void systemInfo(String format, Object... objects);
     void systemError(String format, Object... objects);
     void systemError(Throwable t, String format, Object... objects);
@@ -1,14 +1,108 @@
 package archit.common;
 
-public record Material(String namespace, String id) {
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiPredicate;
+import java.util.regex.Pattern;
+
+/**
+ * Block material. Instances are interned, so equal materials are always the same object,
+ * and each one carries a dense {@link #index()} that platforms can use to cache their own block data.
+ * <p>
+ * Interned materials are never released, so names built by scripts at runtime go through {@link #parse},
+ * which only interns valid names of blocks known to the platform.
+ */
+public final class Material {
     public static final String DEFAULT_NAMESPACE = "minecraft";
+    public static final int MAX_MATERIALS = 1 << 16;  // o rzędy wielkości więcej niż bloków w grze z modami
+
+    private record Key(String namespace, String id) {}
+
+    private static final Map<Key, Material> INTERNED = new ConcurrentHashMap<>();
+    private static final AtomicInteger NEXT_INDEX = new AtomicInteger();
+    // identyfikatory Minecrafta - przestrzeń nazw i ścieżka
+    private static final Pattern NAMESPACE = Pattern.compile("[a-z0-9_.-]+");
+    private static final Pattern ID = Pattern.compile("[a-z0-9_./-]+");
+    private static volatile BiPredicate<String, String> knownBlocks = (namespace, id) -> true;
+
+    private final String namespace;
+    private final String id;
+    private final int index;
+    private final String text;
+
+    private Material(String namespace, String id, int index) {
+        this.namespace = namespace;
+        this.id = id;
+        this.index = index;
+        this.text = namespace + ":" + id;
+    }
+
+    public static Material of(String namespace, String id) {
+        return INTERNED.computeIfAbsent(
+            new Key(namespace, id), k -> new Material(namespace, id, NEXT_INDEX.getAndIncrement())
+        );
+    }
+
+    public static Material of(String id) {
+        return of(DEFAULT_NAMESPACE, id);
+    }
 
-    public Material(String id) {
-        this(DEFAULT_NAMESPACE, id);
+    /**
+     * Material named by a string built at runtime, e.g. {@code "stone"}, {@code ":stone"}
+     * or {@code "minecraft:stone"}. Unlike {@link #of}, a material that is not interned yet
+     * must have a valid name of a block known to the platform, see {@link #setKnownBlocks}.
+     *
+     * @throws IllegalArgumentException if the name is invalid, the block is unknown or there are already
+     *                                  {@link #MAX_MATERIALS} materials
+     */
+    public static Material parse(String name) {
+        String namespace = DEFAULT_NAMESPACE, id = name;
+        int colon = name.indexOf(':');
+        if (colon >= 0) {
+            namespace = colon == 0 ? DEFAULT_NAMESPACE : name.substring(0, colon);
+            id = name.substring(colon + 1);
+        }
+        var existing = INTERNED.get(new Key(namespace, id));
+        if (existing != null) {
+            return existing;
+        }
+        if (!NAMESPACE.matcher(namespace).matches() || !ID.matcher(id).matches()) {
+            throw new IllegalArgumentException("Invalid material name: " + name);
+        }
+        if (!knownBlocks.test(namespace, id)) {
+            throw new IllegalArgumentException("Unknown block: " + namespace + ":" + id);
+        }
+        if (INTERNED.size() >= MAX_MATERIALS) {
+            throw new IllegalArgumentException("Too many distinct materials");
+        }
+        return of(namespace, id);
     }
-    
+
+    /**
+     * @param predicate whether a namespace and an id name an existing block, by default all names are accepted
+     */
+    public static void setKnownBlocks(BiPredicate<String, String> predicate) {
+        knownBlocks = predicate;
+    }
+
+    public String namespace() {
+        return namespace;
+    }
+
+    public String id() {
+        return id;
+    }
+
+    /**
+     * @return index of this material, unique and assigned consecutively from 0 in order of first use
+     */
+    public int index() {
+        return index;
+    }
+
     @Override
     public String toString() {
-        return namespace + ":" + id;
+        return text;
     }
 }
@@ -0,0 +1,167 @@
+package archit.common;
+
+import java.math.BigInteger;
+
+/**
+ * Arithmetic on values of the {@code number} type. A number is always held in its canonical form:
+ * a {@link Long} when it fits in 64 bits, a {@link BigInteger} otherwise. Thanks to that, equal numbers
+ * are also equal Java objects, and the common case never touches {@link BigInteger} at all.
+ */
+public final class Numbers {
+    private Numbers() {}
+
+    private static final int CACHE_LOW = -1024;
+    private static final int CACHE_HIGH = 4096;
+    private static final Long[] CACHE = new Long[CACHE_HIGH - CACHE_LOW + 1];
+
+    static {
+        for (int i = 0; i < CACHE.length; i++) {
+            CACHE[i] = (long) (i + CACHE_LOW);
+        }
+    }
+
+    public static Number valueOf(long value) {
+        if (value >= CACHE_LOW && value <= CACHE_HIGH) {
+            return CACHE[(int) value - CACHE_LOW];
+        }
+        return value;
+    }
+
+    public static Number valueOf(BigInteger value) {
+        return value.bitLength() < Long.SIZE ? valueOf(value.longValue()) : value;
+    }
+
+    /**
+     * Parses a number literal, allowing '_' as a digit separator.
+     */
+    public static Number parse(String text) {
+        var digits = text.replace("_", "");
+        if (digits.length() < 19) {  // mieści się w long bez ryzyka przepełnienia
+            return valueOf(Long.parseLong(digits));
+        }
+        return valueOf(new BigInteger(digits));
+    }
+
+    public static BigInteger toBigInteger(Number value) {
+        return value instanceof BigInteger big ? big : BigInteger.valueOf(value.longValue());
+    }
+
+    public static Number add(Number a, Number b) {
+        if (a instanceof Long x && b instanceof Long y) {
+            long r = x + y;
+            if (((x ^ r) & (y ^ r)) >= 0) {
+                return valueOf(r);
+            }
+        }
+        return valueOf(toBigInteger(a).add(toBigInteger(b)));
+    }
+
+    public static Number subtract(Number a, Number b) {
+        if (a instanceof Long x && b instanceof Long y) {
+            long r = x - y;
+            if (((x ^ y) & (x ^ r)) >= 0) {
+                return valueOf(r);
+            }
+        }
+        return valueOf(toBigInteger(a).subtract(toBigInteger(b)));
+    }
+
+    public static Number multiply(Number a, Number b) {
+        if (a instanceof Long x && b instanceof Long y) {
+            long hi = Math.multiplyHigh(x, y);
+            long lo = x * y;
+            if ((hi == 0 && lo >= 0) || (hi == -1 && lo < 0)) {
+                return valueOf(lo);
+            }
+        }
+        return valueOf(toBigInteger(a).multiply(toBigInteger(b)));
+    }
+
+    /**
+     * Division rounding towards zero, like {@link BigInteger#divide}.
+     */
+    public static Number divide(Number a, Number b) {
+        if (a instanceof Long x && b instanceof Long y && y != 0 && !(x == Long.MIN_VALUE && y == -1)) {
+            return valueOf(x / y);
+        }
+        return valueOf(toBigInteger(a).divide(toBigInteger(b)));
+    }
+
+    /**
+     * Non-negative remainder, like {@link BigInteger#mod} - including its exception for non-positive divisors.
+     */
+    public static Number mod(Number a, Number b) {
+        if (a instanceof Long x && b instanceof Long y && y > 0) {
+            return valueOf(Math.floorMod(x, y));
+        }
+        return valueOf(toBigInteger(a).mod(toBigInteger(b)));
+    }
+
+    /**
+     * Raises a number to the power of the lowest 32 bits of the exponent, like {@link BigInteger#pow}.
+     */
+    public static Number pow(Number base, Number exponent) {
+        int e = exponent.intValue();
+        if (base instanceof Long x && e >= 0) {
+            long result = 1;
+            long square = x;
+            int remaining = e;
+            boolean overflow = false;
+            while (remaining > 0 && !overflow) {
+                if ((remaining & 1) == 1) {
+                    long hi = Math.multiplyHigh(result, square);
+                    long lo = result * square;
+                    overflow = !((hi == 0 && lo >= 0) || (hi == -1 && lo < 0));
+                    result = lo;
+                }
+                remaining >>= 1;
+                if (remaining > 0 && !overflow) {
+                    long hi = Math.multiplyHigh(square, square);
+                    long lo = square * square;
+                    overflow = !(hi == 0 && lo >= 0);
+                    square = lo;
+                }
+            }
+            if (!overflow) {
+                return valueOf(result);
+            }
+        }
+        return valueOf(toBigInteger(base).pow(e));
+    }
+
+    public static Number negate(Number a) {
+        if (a instanceof Long x && x != Long.MIN_VALUE) {
+            return valueOf(-x);
+        }
+        return valueOf(toBigInteger(a).negate());
+    }
+
+    public static Number abs(Number a) {
+        return signum(a) < 0 ? negate(a) : a;
+    }
+
+    public static int signum(Number a) {
+        return a instanceof Long x ? Long.signum(x) : ((BigInteger) a).signum();
+    }
+
+    public static int compare(Number a, Number b) {
+        if (a instanceof Long x && b instanceof Long y) {
+            return Long.compare(x, y);
+        }
+        return toBigInteger(a).compareTo(toBigInteger(b));
+    }
+
+    /**
+     * @throws ArithmeticException if the number does not fit in a long
+     */
+    public static long longValueExact(Number a) {
+        return a instanceof Long x ? x : ((BigInteger) a).longValueExact();
+    }
+
+    /**
+     * @throws ArithmeticException if the number does not fit in an int
+     */
+    public static int intValueExact(Number a) {
+        return a instanceof BigInteger big ? big.intValueExact() : Math.toIntExact(a.longValue());
+    }
+}
@@ -0,0 +1,120 @@
+package archit.common;
+
+import archit.common.vm.CompiledProgram;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Compiled programs of recently run scripts, so that running an unchanged script again skips lexing,
+ * parsing, type checking and compilation. Entries are keyed by the script path and validated
+ * by the hash of its content, the least recently used ones are evicted once the total size
+ * of the cached programs exceeds the capacity.
+ */
+public class ProgramCache {
+    public static final int DEFAULT_CAPACITY = 1 << 20;  // w instrukcjach
+
+    private record Entry(byte[] hash, CompiledProgram program) {}
+
+    // kolejność dostępu - pierwszy wpis to najdawniej użyty
+    private final Map<Path, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size = 0;
+    private int capacity = DEFAULT_CAPACITY;
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * @param hash hash of the current content of the script, see {@link #hash}
+     * @return the cached program of the script, if its content has not changed since, null otherwise
+     */
+    public synchronized CompiledProgram get(Path script, byte[] hash) {
+        var entry = entries.get(key(script));
+        if (entry != null && Arrays.equals(entry.hash(), hash)) {
+            hits++;
+            return entry.program();
+        }
+        misses++;
+        return null;
+    }
+
+    public synchronized void put(Path script, byte[] hash, CompiledProgram program) {
+        var previous = entries.put(key(script), new Entry(hash, program));
+        if (previous != null) {
+            size -= previous.program().size();
+        }
+        size += program.size();
+        evict();
+    }
+
+    /**
+     * Drops the program of a script, e.g. once it is changed or deleted.
+     */
+    public synchronized void remove(Path script) {
+        var entry = entries.remove(key(script));
+        if (entry != null) {
+            size -= entry.program().size();
+        }
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        size = 0;
+    }
+
+    public synchronized int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * @param capacity total number of instructions of all cached programs, 0 disables caching
+     */
+    public synchronized void setCapacity(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Cache capacity must not be negative");
+        }
+        this.capacity = capacity;
+        evict();
+    }
+
+    public synchronized int getEntryCount() {
+        return entries.size();
+    }
+
+    public synchronized long getSize() {
+        return size;
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private void evict() {
+        var iterator = entries.values().iterator();
+        while (size > capacity && iterator.hasNext()) {
+            size -= iterator.next().program().size();
+            iterator.remove();
+        }
+    }
+
+    private static Path key(Path script) {
+        return script.toAbsolutePath().normalize();
+    }
+
+    /**
+     * @return hash identifying the content of a script
+     */
+    public static byte[] hash(byte[] content) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(content);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is always available", e);
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package archit.common;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Predicate;
+
+/**
+ * Splits a single per-tick time budget between all running scripts. Every run earns credit proportional
+ * to its weight each tick and spends it on execution (deficit round-robin), so runs that were cut short
+ * or idle catch up later, while runs that overran their slice pay it back. Additionally, scripts started
+ * by the same player can never use more than the per-player quota in a single tick.
+ * <p>
+ * By default scripts run on the calling thread. After {@link #useWorkers}, slices are executed
+ * on a worker pool instead and {@link #runTick} returns immediately.
+ */
+public class Scheduler {
+    public static final long DEFAULT_TICK_BUDGET_NANOS = 10_000_000;
+    public static final long DEFAULT_PLAYER_QUOTA_NANOS = 5_000_000;
+    public static final int MAX_WEIGHT = 100;
+
+    private final Interpreter interpreter;
+    private long tickBudgetNanos = DEFAULT_TICK_BUDGET_NANOS;
+    private long playerQuotaNanos = DEFAULT_PLAYER_QUOTA_NANOS;
+
+    // niewykorzystany (lub przekroczony, wtedy ujemny) czas każdego uruchomienia
+    private final Map<ScriptRun, Long> credits = new ConcurrentHashMap<>();
+    private int rotation = 0;
+
+    private ExecutorService workers;
+    private final Set<ScriptRun> inFlight = ConcurrentHashMap.newKeySet();
+
+    public Scheduler(Interpreter interpreter) {
+        this.interpreter = interpreter;
+    }
+
+    public long getTickBudgetNanos() {
+        return tickBudgetNanos;
+    }
+
+    public void setTickBudgetNanos(long tickBudgetNanos) {
+        if (tickBudgetNanos <= 0) {
+            throw new IllegalArgumentException("Tick budget must be positive");
+        }
+        this.tickBudgetNanos = tickBudgetNanos;
+    }
+
+    public long getPlayerQuotaNanos() {
+        return playerQuotaNanos;
+    }
+
+    public void setPlayerQuotaNanos(long playerQuotaNanos) {
+        if (playerQuotaNanos <= 0) {
+            throw new IllegalArgumentException("Player quota must be positive");
+        }
+        this.playerQuotaNanos = playerQuotaNanos;
+    }
+
+    /**
+     * Moves script execution off the calling thread, onto a pool of the given number of daemon threads.
+     */
+    public void useWorkers(int threads) {
+        shutdownWorkers();
+        workers = Executors.newFixedThreadPool(threads, task -> {
+            var thread = new Thread(task, "archit-worker");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void shutdownWorkers() {
+        if (workers != null) {
+            workers.shutdownNow();
+            workers = null;
+        }
+    }
+
+    /**
+     * Runs every script for its share of a single tick.
+     */
+    public void runTick() {
+        runTick(run -> true);
+    }
+
+    /**
+     * Runs scripts accepted by the filter for their share of a single tick.
+     * Paused scripts neither run nor earn credit, their share goes to the others.
+     */
+    public void runTick(Predicate<ScriptRun> active) {
+        // kopia, bo uruchomienia mogą się zakończyć w trakcie
+        var runs = new ArrayList<>(interpreter.getCurrentRuns());
+        credits.keySet().retainAll(new HashSet<>(runs));
+        runs.removeIf(active.negate());
+        runs.removeIf(inFlight::contains);  // poprzedni przydział wciąż jest wykonywany
+        if (runs.isEmpty()) {
+            return;
+        }
+
+        long totalWeight = runs.stream().mapToLong(ScriptRun::getWeight).sum();
+        for (var run : runs) {
+            long earned = tickBudgetNanos * run.getWeight() / totalWeight;
+            // zaległości mogą się kumulować najwyżej do pełnego budżetu jednego ticka
+            credits.merge(run, earned, (a, b) -> Math.min(a + b, tickBudgetNanos));
+        }
+
+        // kolejność rotuje, aby przy wyczerpanym budżecie pomijane były co tick inne skrypty
+        rotation = (rotation + 1) % runs.size();
+        long remaining = tickBudgetNanos;
+        Map<String, Long> quotas = new HashMap<>();
+        for (int i = 0; i < runs.size() && remaining > 0; i++) {
+            var run = runs.get((rotation + i) % runs.size());
+            long quota = quotas.getOrDefault(run.getOwner(), playerQuotaNanos);
+            long slice = Math.min(Math.min(credits.get(run), quota), remaining);
+            if (slice <= 0) {
+                continue;
+            }
+            // na wątkach roboczych liczy się przydzielony czas, a faktycznie zużyty rozlicza kredyt
+            long used = workers == null ? execute(run, slice) : slice;
+            if (workers != null) {
+                inFlight.add(run);
+                workers.execute(() -> {
+                    try {
+                        execute(run, slice);
+                    } finally {
+                        inFlight.remove(run);
+                    }
+                });
+            }
+            quotas.put(run.getOwner(), quota - used);
+            remaining -= used;
+        }
+    }
+
+    /**
+     * @return time actually used by the run
+     */
+    private long execute(ScriptRun run, long slice) {
+        long start = System.nanoTime();
+        run.runNextTick(slice);
+        long used = System.nanoTime() - start;
+        credits.computeIfPresent(run, (r, credit) -> credit - used);
+        return used;
+    }
+}
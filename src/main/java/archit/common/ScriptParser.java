@@ -0,0 +1,72 @@
+package archit.common;
+
+import archit.parser.ArchitLexer;
+import archit.parser.ArchitParser;
+import java.util.function.Function;
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+
+/**
+ * Parses scripts and native declarations in two stages. The first one uses the fast SLL prediction
+ * and gives up on the first syntax error, which is enough for almost every valid script. Only if it fails
+ * the input is parsed again with full LL prediction, which reports errors to the {@link ScriptErrorListener}
+ * - a script with a real syntax error fails in both stages, but the error is reported only once.
+ * <p>
+ * Lexers and parsers are reused, one pair per thread. All instances of the generated parser share
+ * the DFA cache of the grammar, so predictions computed for one script speed up parsing of all others.
+ */
+public final class ScriptParser {
+    private static final ThreadLocal<ScriptParser> INSTANCES = ThreadLocal.withInitial(ScriptParser::new);
+
+    private final ArchitLexer lexer = new ArchitLexer(null);
+    private final ArchitParser parser = new ArchitParser(null);
+
+    private ScriptParser() {}
+
+    /**
+     * @return the parser of the current thread
+     */
+    public static ScriptParser get() {
+        return INSTANCES.get();
+    }
+
+    /**
+     * @param rule start rule of the grammar, e.g. {@code ArchitParser::program}
+     * @throws ScriptException or whatever else the listener throws on syntax errors
+     */
+    public <T extends ParserRuleContext> T parse(
+        CharStream input, ScriptErrorListener listener, Function<ArchitParser, T> rule
+    ) {
+        lexer.setInputStream(input);
+        lexer.removeErrorListeners();
+        lexer.addErrorListener(listener);
+        var tokens = new CommonTokenStream(lexer);
+        parser.setTokenStream(tokens);
+        parser.removeErrorListeners();
+        try {
+            parser.setErrorHandler(new BailErrorStrategy());
+            parser.getInterpreter().setPredictionMode(PredictionMode.SLL);
+            try {
+                return rule.apply(parser);
+            } catch (ParseCancellationException e) {
+                // już pobrane tokeny są używane ponownie, więc lexer nie zgłosi drugi raz tych samych błędów
+                parser.reset();
+                parser.addErrorListener(listener);
+                parser.setErrorHandler(new DefaultErrorStrategy());
+                parser.getInterpreter().setPredictionMode(PredictionMode.LL);
+                return rule.apply(parser);
+            }
+        } finally {
+            // bez odwołań do skryptu i jego uruchomienia, które inaczej żyłyby tak długo jak wątek
+            lexer.removeErrorListeners();
+            parser.removeErrorListeners();
+            lexer.setInputStream(null);
+            parser.setTokenStream(null);
+        }
+    }
+}
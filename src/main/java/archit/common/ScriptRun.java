@@ -1,10 +1,13 @@
 package archit.common;
 
-import archit.common.visitors.EvaluationVisitor;
+import archit.common.visitors.CompilingVisitor;
 import archit.common.visitors.TypeCheckingVisitor;
-import archit.parser.ArchitLexer;
+import archit.common.vm.CompiledProgram;
+import archit.common.vm.ProgramFile;
+import archit.common.vm.VirtualMachine;
 import archit.parser.ArchitParser;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalTime;
@@ -13,10 +16,8 @@ import java.util.Optional;
 import java.util.Random;
 import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 
 public class ScriptRun {
-    private static final long TICK_LIMIT_NANOS = 3_000_000;
     private static final DateTimeFormatter START_FORMATTER = DateTimeFormatter.ofPattern("HH:mm:ss");
 
     /**
@@ -30,10 +31,13 @@ public class ScriptRun {
     private String args = "";
     private int cursorX = 0, cursorY = 0, cursorZ = 0;
     private Random random = new Random();
-    private EvaluationVisitor visitor;
+    private VirtualMachine vm;
     private final LocalTime startTime = LocalTime.now();
     private Optional<Integer> animationSpeed = Optional.empty();  // animation speed in ticks, if applicable
     private long ticks = -1;
+    private String owner = "";  // gracz, który uruchomił skrypt - na potrzeby limitów w Scheduler
+    private int weight = 1;
+    private volatile boolean stopped = false;
 
     public ScriptRun(Interpreter interpreter, Path file, Object metadata, String args) {
         this.interpreter = interpreter;
@@ -77,6 +81,25 @@ public class ScriptRun {
         return cursorZ;
     }
 
+    public String getOwner() {
+        return owner;
+    }
+
+    public void setOwner(String owner) {
+        this.owner = owner;
+    }
+
+    public int getWeight() {
+        return weight;
+    }
+
+    public void setWeight(int weight) {
+        if (weight < 1 || weight > Scheduler.MAX_WEIGHT) {
+            throw new IllegalArgumentException("Weight must be between 1 and " + Scheduler.MAX_WEIGHT);
+        }
+        this.weight = weight;
+    }
+
     public Random getRandom() {
         return random;
     }
@@ -105,85 +128,169 @@ public class ScriptRun {
      * @return true if run was successful, false if there were any errors
      */
     public boolean startExecution() {
+        var content = readScript();
+        if (content == null) {
+            return false;
+        }
+        var program = loadProgram(content);
+        if (program == null) {
+            return false;
+        }
+        vm = new VirtualMachine(this, program);
+        interpreter.getCurrentRuns().add(this);
+        interpreter.getLogger().scriptDebug(this, "Script started: {}", toString());
+        return true;
+    }
+
+    /**
+     * Compiles the script into the interpreter's {@link ProgramCache} without running it,
+     * unless it is already compiled.
+     *
+     * @return true if the script is ready to run, false if there were any errors
+     */
+    public boolean prepare() {
+        var content = readScript();
+        return content != null && loadProgram(content) != null;
+    }
+
+    /**
+     * Compiles the script and saves it in the {@link ProgramFile} format without running it,
+     * so that later runs, also after a restart, skip the compilation.
+     *
+     * @return true if the script compiled and was saved, false if there were any errors
+     */
+    public boolean precompile() {
+        var content = readScript();
+        if (content == null) {
+            return false;
+        }
+        var program = compile(content);
+        if (program == null) {
+            return false;
+        }
+        try {
+            var hash = ProgramCache.hash(content);
+            ProgramFile.write(
+                ProgramFile.pathFor(scriptLocation), program, hash, interpreter.getStandardLibrary()
+            );
+            interpreter.getProgramCache().put(scriptLocation, hash, program);
+        } catch (IOException e) {
+            interpreter.getLogger().systemError(e, "Failed to save the compiled script");
+            return false;
+        }
+        return true;
+    }
+
+    private byte[] readScript() {
         if (!Files.exists(scriptLocation)) {
             interpreter.getLogger().scriptError(this, "Script file does not exist!");
-            return false;
+            return null;
         } else if (Files.isDirectory(scriptLocation)) {
             interpreter.getLogger().scriptError(this, "Script path leads to a directory!");
-            return false;
+            return null;
         } else if (!Files.isReadable(scriptLocation)) {
             interpreter.getLogger().scriptError(this, "Script file is not readable!");
-            return false;
+            return null;
         }
-        CharStream charStream;
         try {
-            charStream = CharStreams.fromPath(scriptLocation);
+            return Files.readAllBytes(scriptLocation);
         } catch (IOException e) {
             interpreter.getLogger().systemError(e, "Failed to read the script even though it's readable?!");
-            return false;
+            return null;
         }
+    }
 
-        ArchitLexer lexer = new ArchitLexer(charStream);
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        ArchitParser parser = new ArchitParser(tokens);
+    /**
+     * Looks for the compiled program in memory, then on disk, and only then compiles the script.
+     */
+    private CompiledProgram loadProgram(byte[] content) {
+        // niezmieniony skrypt nie jest ponownie parsowany, sprawdzany ani kompilowany
+        var hash = ProgramCache.hash(content);
+        var cache = interpreter.getProgramCache();
+        var program = cache.get(scriptLocation, hash);
+        if (program != null) {
+            return program;
+        }
+        try {
+            program = ProgramFile.read(
+                ProgramFile.pathFor(scriptLocation), scriptLocation, hash, interpreter.getStandardLibrary()
+            );
+        } catch (IOException e) {
+            interpreter.getLogger().systemError(e, "Failed to load the compiled script, compiling it again");
+        }
+        if (program == null) {
+            program = compile(content);
+        }
+        if (program != null) {
+            cache.put(scriptLocation, hash, program);
+        }
+        return program;
+    }
 
-        // usuwamy domyślne ErrorListenery i dodajemy nasze dla parsera i lexera
-        parser.removeErrorListeners();
-        parser.addErrorListener(new ScriptErrorListener(this));
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(new ScriptErrorListener(this));
+    /**
+     * @return the compiled program, null if the script has errors (already reported)
+     */
+    private CompiledProgram compile(byte[] content) {
+        CharStream charStream =
+            CharStreams.fromString(new String(content, StandardCharsets.UTF_8), scriptLocation.toString());
 
         try {
-            ArchitParser.ProgramContext tree = parser.program();
+            ArchitParser.ProgramContext tree =
+                ScriptParser.get().parse(charStream, new ScriptErrorListener(this), ArchitParser::program);
             // stworzenie visitora i uruchomienie
             var typeChecker = new TypeCheckingVisitor(this);
             typeChecker.visit(tree);
-            visitor = new EvaluationVisitor(this, typeChecker.getTables(), tree);
-            interpreter.getCurrentRuns().add(this);
-            interpreter.getLogger().scriptDebug(this, "Script started: {}", toString());
+            return new CompilingVisitor(typeChecker.getTables()).compile(tree);
         } catch (ScriptException e) {
-            return false;
+            return null;
         } catch (RuntimeException e) {
             interpreter.getLogger().systemError(e, "Unknown type checking exception caught!");
             interpreter.getLogger().scriptError(this, "Unknown exception: {}", e.getMessage());
-            return false;
+            return null;
         }
-
-        return true;
     }
 
-    public void runNextTick() {
+    /**
+     * @param sliceNanos time this run may execute for, assigned by the {@link Scheduler}
+     */
+    public void runNextTick(long sliceNanos) {
         ticks++;
         if (animationSpeed.isPresent() && ticks % animationSpeed.get() != 0) {
             return;
         }
 
-        var start = System.nanoTime();
-        do {
-            var call = visitor.getNextCall();
-            if (call.isEmpty()) {
-                stopExecution();
-                return;
-            } else if (animationSpeed.isPresent()
-                       && call.get() instanceof EvaluationVisitor.FunctionCallDebugInfo fcdi) {
-                interpreter.getLogger().scriptDebug(this, "Function call: {}", fcdi);
-                return;
-            }
-            try {
-                call.get().run();
-            } catch (ScriptException e) {
-                stopExecution();
-                return;
-            } catch (RuntimeException e) {
-                interpreter.getLogger().systemError(e, "Unknown runtime exception caught!");
-                interpreter.getLogger().scriptError(this, "Unknown exception: {}", e.getMessage());
+        try {
+            boolean running = vm.execute(System.nanoTime() + sliceNanos, animationSpeed.isPresent());
+            if (!running) {
                 stopExecution();
-                return;
+            } else if (vm.getLastCall() != null) {
+                interpreter.getLogger().scriptDebug(this, "Function call: {}", vm.getLastCall());
             }
-        } while (System.nanoTime() - start < TICK_LIMIT_NANOS);
+        } catch (ScriptException e) {
+            stopExecution();
+        } catch (RuntimeException e) {
+            interpreter.getLogger().systemError(e, "Unknown runtime exception caught!");
+            interpreter.getLogger().scriptError(this, "Unknown exception: {}", e.getMessage());
+            stopExecution();
+        }
+    }
+
+    /**
+     * @return number of VM instructions this run has executed, 0 if it never started
+     */
+    public long getInstructionCount() {
+        return vm != null ? vm.getInstructionCount() : 0;
+    }
+
+    public boolean isStopped() {
+        return stopped;
     }
 
     public void stopExecution() {
+        if (stopped) {  // np. zatrzymanie poleceniem w trakcie kończenia się na wątku roboczym
+            return;
+        }
+        stopped = true;
         interpreter.getCurrentRuns().remove(this);
         interpreter.getLogger().scriptDebug(this, "Script stopped: {}", toString());
     }
@@ -1,7 +1,6 @@
 package archit.common;
 
 import archit.parser.ArchitParser;
-import java.math.BigInteger;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -176,7 +175,7 @@ public class Type {
         }
     }
 
-    public static final Type number = new Type("number", BigInteger.class);
+    public static final Type number = new Type("number", Number.class);
     public static final Type real = new Type("real", Double.class);
     public static final Type logic = new Type("logic", Boolean.class);
     public static final Type string = new Type("string", String.class);
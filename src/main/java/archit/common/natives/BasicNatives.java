@@ -1,11 +1,11 @@
 package archit.common.natives;
 
 import archit.common.ArchitFunction;
+import archit.common.Numbers;
 import archit.common.ScriptRun;
 import archit.common.Type;
 import archit.common.stdlib.ArchitDynamic;
 import archit.common.stdlib.ArchitNative;
-import java.math.BigInteger;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,8 +18,8 @@ public class BasicNatives {
     @ArchitDynamic
     public Optional<ArchitFunction> print(Type[] types) {
         if (types.length == 1) {
-            return Optional.of(ArchitFunction.fromFunction("print", null, types, (run, p) -> {
-                run.getInterpreter().getLogger().scriptPrint(run, types[0].toStringObject(p[0]));
+            return Optional.of(ArchitFunction.fromFunction("print", null, types, (run, args, offset) -> {
+                run.getInterpreter().getLogger().scriptPrint(run, types[0].toStringObject(args[offset]));
                 return null;
             }, "object"));
         }
@@ -40,21 +40,21 @@ public class BasicNatives {
     }
 
     @ArchitNative("native move(x: number, y: number, z: number);")
-    public void move(ScriptRun run, BigInteger x, BigInteger y, BigInteger z) {
+    public void move(ScriptRun run, Number x, Number y, Number z) {
         run.moveCursor(x.intValue(), y.intValue(), z.intValue());
     }
 
     @ArchitNative("native move(vector: [number]);")
-    public void move(ScriptRun run, List<BigInteger> vector) {
+    public void move(ScriptRun run, List<Number> vector) {
         run.moveCursor(vector.get(0).intValue(), vector.get(1).intValue(), vector.get(2).intValue());
     }
 
     @ArchitNative("native position(): [number];")
-    public List<BigInteger> position(ScriptRun run) {
+    public List<Number> position(ScriptRun run) {
         return List.of(
-            BigInteger.valueOf(run.getCursorX()),
-            BigInteger.valueOf(run.getCursorY()),
-            BigInteger.valueOf(run.getCursorZ())
+            Numbers.valueOf(run.getCursorX()),
+            Numbers.valueOf(run.getCursorY()),
+            Numbers.valueOf(run.getCursorZ())
         );
     }
 
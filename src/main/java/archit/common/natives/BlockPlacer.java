@@ -0,0 +1,12 @@
+package archit.common.natives;
+
+import archit.common.Material;
+import archit.common.ScriptRun;
+
+/**
+ * Placement path of a platform, used by natives that place many blocks at once.
+ */
+@FunctionalInterface
+public interface BlockPlacer {
+    void place(ScriptRun run, int x, int y, int z, Material block);
+}
@@ -1,13 +1,13 @@
 package archit.common.natives;
 
 import archit.common.Material;
+import archit.common.Numbers;
 import archit.common.ScriptRun;
 import archit.common.stdlib.ArchitNative;
-import java.math.BigInteger;
 
 public class Casts {
     @ArchitNative("native as_real(value: number): real;")
-    public Double asReal(ScriptRun run, BigInteger value) {
+    public Double asReal(ScriptRun run, Number value) {
         return value.doubleValue();
     }
 
@@ -17,25 +17,17 @@ public class Casts {
     }
 
     @ArchitNative("native as_number(value: real): number;")
-    public BigInteger asNumber(ScriptRun run, Double value) {
-        return BigInteger.valueOf(value.longValue());
+    public Number asNumber(ScriptRun run, Double value) {
+        return Numbers.valueOf(value.longValue());
     }
 
     @ArchitNative("native as_number(value: string): number;")
-    public BigInteger asNumber(ScriptRun run, String value) {
-        return new BigInteger(value.replace("_", ""));
+    public Number asNumber(ScriptRun run, String value) {
+        return Numbers.parse(value);
     }
 
     @ArchitNative("native as_material(value: string): material;")
     public Material asMaterial(ScriptRun run, String value) {
-        if (value.startsWith(":")) {
-            return new Material(value.substring(1));
-        }
-        var split = value.split(":");
-        if (split.length == 1) {
-            return new Material(split[0]);
-        } else {
-            return new Material(split[0], split[1]);
-        }
+        return Material.parse(value);
     }
 }
@@ -0,0 +1,224 @@
+package archit.common.natives;
+
+import archit.common.Material;
+import archit.common.Numbers;
+import archit.common.ScriptRun;
+import archit.common.stdlib.ArchitNative;
+
+/**
+ * Shapes filled in a single native call, relative to the cursor, which stays where it was.
+ * Hollow variants only place blocks of the shape that touch its outside with at least one face.
+ */
+public class GeometryNatives {
+    public static final long MAX_VOLUME = 1L << 27;  // ograniczenie prostopadłościanu otaczającego
+
+    private final BlockPlacer placer;
+
+    public GeometryNatives(BlockPlacer placer) {
+        this.placer = placer;
+    }
+
+    @FunctionalInterface
+    private interface Shape {
+        boolean contains(int x, int y, int z);
+    }
+
+    @ArchitNative("native box(x: number, y: number, z: number, block: material);")
+    public void box(ScriptRun run, Number x, Number y, Number z, Material block) {
+        box(run, toInt(x), toInt(y), toInt(z), block, false);
+    }
+
+    @ArchitNative("native hollow_box(x: number, y: number, z: number, block: material);")
+    public void hollowBox(ScriptRun run, Number x, Number y, Number z, Material block) {
+        box(run, toInt(x), toInt(y), toInt(z), block, true);
+    }
+
+    @ArchitNative("native sphere(radius: number, block: material);")
+    public void sphere(ScriptRun run, Number radius, Material block) {
+        ellipsoid(run, toInt(radius), toInt(radius), toInt(radius), block, false);
+    }
+
+    @ArchitNative("native hollow_sphere(radius: number, block: material);")
+    public void hollowSphere(ScriptRun run, Number radius, Material block) {
+        ellipsoid(run, toInt(radius), toInt(radius), toInt(radius), block, true);
+    }
+
+    @ArchitNative("native ellipsoid(x: number, y: number, z: number, block: material);")
+    public void ellipsoid(ScriptRun run, Number x, Number y, Number z, Material block) {
+        ellipsoid(run, toInt(x), toInt(y), toInt(z), block, false);
+    }
+
+    @ArchitNative("native hollow_ellipsoid(x: number, y: number, z: number, block: material);")
+    public void hollowEllipsoid(ScriptRun run, Number x, Number y, Number z, Material block) {
+        ellipsoid(run, toInt(x), toInt(y), toInt(z), block, true);
+    }
+
+    @ArchitNative("native cylinder(radius: number, height: number, block: material);")
+    public void cylinder(ScriptRun run, Number radius, Number height, Material block) {
+        cylinder(run, toInt(radius), toInt(height), block, false);
+    }
+
+    @ArchitNative("native hollow_cylinder(radius: number, height: number, block: material);")
+    public void hollowCylinder(ScriptRun run, Number radius, Number height, Material block) {
+        cylinder(run, toInt(radius), toInt(height), block, true);
+    }
+
+    @ArchitNative("native cone(radius: number, height: number, block: material);")
+    public void cone(ScriptRun run, Number radius, Number height, Material block) {
+        cone(run, toInt(radius), toInt(height), block, false);
+    }
+
+    @ArchitNative("native hollow_cone(radius: number, height: number, block: material);")
+    public void hollowCone(ScriptRun run, Number radius, Number height, Material block) {
+        cone(run, toInt(radius), toInt(height), block, true);
+    }
+
+    /**
+     * 3D Bresenham line from the cursor to the cursor moved by the given vector, both ends included.
+     */
+    @ArchitNative("native line(x: number, y: number, z: number, block: material);")
+    public void line(ScriptRun run, Number x, Number y, Number z, Material block) {
+        int dx = toInt(x), dy = toInt(y), dz = toInt(z);
+        // w long, bo Math.abs(Integer.MIN_VALUE) jest ujemne
+        long length = Math.max(Math.abs((long) dx), Math.max(Math.abs((long) dy), Math.abs((long) dz))) + 1;
+        if (length > MAX_VOLUME) {
+            throw new IllegalArgumentException("Shape is too large: " + length + " blocks");
+        }
+        int ax = Math.abs(dx), ay = Math.abs(dy), az = Math.abs(dz);
+        int sx = Integer.signum(dx), sy = Integer.signum(dy), sz = Integer.signum(dz);
+        int steps = Math.max(ax, Math.max(ay, az));
+        // błędy kumulowane dla osi innych niż dominująca
+        int ex = 2 * ax - steps, ey = 2 * ay - steps, ez = 2 * az - steps;
+        int px = run.getCursorX(), py = run.getCursorY(), pz = run.getCursorZ();
+        for (int i = 0; i <= steps; i++) {
+            placer.place(run, px, py, pz, block);
+            if (ex > 0) {
+                px += sx;
+                ex -= 2 * steps;
+            }
+            if (ey > 0) {
+                py += sy;
+                ey -= 2 * steps;
+            }
+            if (ez > 0) {
+                pz += sz;
+                ez -= 2 * steps;
+            }
+            ex += 2 * ax;
+            ey += 2 * ay;
+            ez += 2 * az;
+        }
+    }
+
+    /**
+     * Box spanning from the cursor in the direction of the signs of its dimensions.
+     */
+    private void box(ScriptRun run, int x, int y, int z, Material block, boolean hollow) {
+        if (x == 0 || y == 0 || z == 0) {
+            return;
+        }
+        int minX = Math.min(0, x + 1), maxX = Math.max(0, x - 1);
+        int minY = Math.min(0, y + 1), maxY = Math.max(0, y - 1);
+        int minZ = Math.min(0, z + 1), maxZ = Math.max(0, z - 1);
+        fill(run, minX, minY, minZ, maxX, maxY, maxZ, block, hollow, (px, py, pz) ->
+            px >= minX && px <= maxX && py >= minY && py <= maxY && pz >= minZ && pz <= maxZ
+        );
+    }
+
+    /**
+     * Ellipsoid centered at the cursor, with the given radii along the axes. An axis with a zero radius is flat,
+     * e.g. {@code ellipsoid(0, 5, 5, ...)} is a disc, whose hollow variant is a ring.
+     */
+    private void ellipsoid(ScriptRun run, int rx, int ry, int rz, Material block, boolean hollow) {
+        if (rx < 0 || ry < 0 || rz < 0) {
+            throw new IllegalArgumentException("Radius cannot be negative");
+        }
+        // x²/rx² + y²/ry² + z²/rz² <= 1, pomnożone przez rx²ry²rz², by uniknąć dzielenia - płaskie osie
+        // wypadają z równania (promień 1 w iloczynach), więc zostaje elipsa w pozostałych osiach
+        double sx = rx == 0 ? 1 : (double) rx * rx;
+        double sy = ry == 0 ? 1 : (double) ry * ry;
+        double sz = rz == 0 ? 1 : (double) rz * rz;
+        double a = sy * sz, b = sx * sz, c = sx * sy;
+        double limit = sx * sy * sz;
+        // współrzędna płaskiej osi jest pomijana, więc sąsiedzi wzdłuż niej nie są zewnętrzem kształtu,
+        // a wariant pusty zostawia tylko obwód
+        fill(run, -rx, -ry, -rz, rx, ry, rz, block, hollow, (x, y, z) -> {
+            double px = rx == 0 ? 0 : x, py = ry == 0 ? 0 : y, pz = rz == 0 ? 0 : z;
+            return Math.abs(px) <= rx && Math.abs(py) <= ry && Math.abs(pz) <= rz
+                && a * px * px + b * py * py + c * pz * pz <= limit;
+        });
+    }
+
+    /**
+     * Vertical cylinder standing on the cursor, centered on it.
+     */
+    private void cylinder(ScriptRun run, int radius, int height, Material block, boolean hollow) {
+        if (radius < 0 || height < 0) {
+            throw new IllegalArgumentException("Radius and height cannot be negative");
+        }
+        long radiusSq = (long) radius * radius;
+        fill(run, -radius, 0, -radius, radius, height - 1, radius, block, hollow, (x, y, z) ->
+            y >= 0 && y < height && (long) x * x + (long) z * z <= radiusSq
+        );
+    }
+
+    /**
+     * Vertical cone with its base on the cursor, narrowing upwards.
+     */
+    private void cone(ScriptRun run, int radius, int height, Material block, boolean hollow) {
+        if (radius < 0 || height < 0) {
+            throw new IllegalArgumentException("Radius and height cannot be negative");
+        }
+        fill(run, -radius, 0, -radius, radius, height - 1, radius, block, hollow, (x, y, z) -> {
+            if (y < 0 || y >= height) {
+                return false;
+            }
+            double r = (double) radius * (height - y) / height;
+            return (double) x * x + (double) z * z <= r * r;
+        });
+    }
+
+    private void fill(
+        ScriptRun run,
+        int minX,
+        int minY,
+        int minZ,
+        int maxX,
+        int maxY,
+        int maxZ,
+        Material block,
+        boolean hollow,
+        Shape shape
+    ) {
+        long volume = ((long) maxX - minX + 1) * ((long) maxY - minY + 1) * ((long) maxZ - minZ + 1);
+        if (volume > MAX_VOLUME) {
+            throw new IllegalArgumentException("Shape is too large: " + volume + " blocks");
+        }
+        int cx = run.getCursorX(), cy = run.getCursorY(), cz = run.getCursorZ();
+        for (int y = minY; y <= maxY; y++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int x = minX; x <= maxX; x++) {
+                    if (shape.contains(x, y, z) && (!hollow || onSurface(shape, x, y, z))) {
+                        placer.place(run, cx + x, cy + y, cz + z, block);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @throws IllegalArgumentException instead of wrapping around if the number does not fit in an int
+     */
+    private static int toInt(Number value) {
+        try {
+            return Numbers.intValueExact(value);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Number out of range: " + value);
+        }
+    }
+
+    private static boolean onSurface(Shape shape, int x, int y, int z) {
+        return !shape.contains(x + 1, y, z) || !shape.contains(x - 1, y, z) || !shape.contains(x, y + 1, z)
+            || !shape.contains(x, y - 1, z) || !shape.contains(x, y, z + 1) || !shape.contains(x, y, z - 1);
+    }
+}
@@ -1,8 +1,8 @@
 package archit.common.natives;
 
+import archit.common.Numbers;
 import archit.common.ScriptRun;
 import archit.common.stdlib.ArchitNative;
-import java.math.BigInteger;
 
 public class MathNatives {
     @ArchitNative("native sqrt(value: real): real;")
@@ -11,7 +11,7 @@ public class MathNatives {
     }
 
     @ArchitNative("native sqrt(value: number): real;")
-    public Double sqrt(ScriptRun run, BigInteger value) {
+    public Double sqrt(ScriptRun run, Number value) {
         return Math.sqrt(value.doubleValue());
     }
 
@@ -21,23 +21,23 @@ public class MathNatives {
     }
 
     @ArchitNative("native abs(value: number): number;")
-    public BigInteger abs(ScriptRun run, BigInteger value) {
-        return value.abs();
+    public Number abs(ScriptRun run, Number value) {
+        return Numbers.abs(value);
     }
 
     @ArchitNative("native floor(value: real): number;")
-    public BigInteger floor(ScriptRun run, Double value) {
-        return BigInteger.valueOf((long) Math.floor(value));
+    public Number floor(ScriptRun run, Double value) {
+        return Numbers.valueOf((long) Math.floor(value));
     }
 
     @ArchitNative("native ceil(value: real): number;")
-    public BigInteger ceil(ScriptRun run, Double value) {
-        return BigInteger.valueOf((long) Math.ceil(value));
+    public Number ceil(ScriptRun run, Double value) {
+        return Numbers.valueOf((long) Math.ceil(value));
     }
 
     @ArchitNative("native round(value: real): number;")
-    public BigInteger round(ScriptRun run, Double value) {
-        return BigInteger.valueOf(Math.round(value));
+    public Number round(ScriptRun run, Double value) {
+        return Numbers.valueOf(Math.round(value));
     }
 
     @ArchitNative("native sin(value: real): real;")
@@ -53,15 +53,15 @@ public class MathNatives {
     public Double log(ScriptRun run, Double base, Double value) {return Math.log(value) / Math.log(base);}
 
     @ArchitNative("native log(base: number, value: number): real;")
-    public Double log(ScriptRun run, BigInteger base, BigInteger value) {
+    public Double log(ScriptRun run, Number base, Number value) {
         return Math.log(value.doubleValue()) / Math.log(base.doubleValue());
     }
 
     @ArchitNative("native sign(value: real): number;")
-    public BigInteger sign(ScriptRun run, Double value) {return BigInteger.valueOf(Long.signum((long) Math.signum(value)));}
+    public Number sign(ScriptRun run, Double value) {return Numbers.valueOf(Long.signum((long) Math.signum(value)));}
 
     @ArchitNative("native sign(value: number): number;")
-    public BigInteger sign(ScriptRun run, BigInteger value) {return BigInteger.valueOf(value.signum());}
+    public Number sign(ScriptRun run, Number value) {return Numbers.valueOf(Numbers.signum(value));}
 
     @ArchitNative("native to_radians(deg: real): real;")
     public Double toRadians(ScriptRun run, Double deg) {return Math.toRadians(deg);}
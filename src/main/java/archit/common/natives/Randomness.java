@@ -1,10 +1,9 @@
 package archit.common.natives;
 
+import archit.common.Numbers;
 import archit.common.ScriptRun;
 import archit.common.stdlib.ArchitNative;
 
-import java.math.BigInteger;
-
 public class Randomness {
 
     @ArchitNative("native random(min: real, max: real): real;")
@@ -17,14 +16,14 @@ public class Randomness {
     }
 
     @ArchitNative("native random(min: number, max: number): number;")
-    public BigInteger random(ScriptRun run, BigInteger min, BigInteger max) {
-        if (max.compareTo(min) <= 0) {
+    public Number random(ScriptRun run, Number min, Number max) {
+        if (Numbers.compare(max, min) <= 0) {
             throw new IllegalArgumentException("max must be greater than min");
         }
 
-        return BigInteger.valueOf(run.getRandom().nextLong(min.longValueExact(),max.longValueExact()));
+        return Numbers.valueOf(run.getRandom().nextLong(Numbers.longValueExact(min), Numbers.longValueExact(max)));
     }
 
     @ArchitNative("native seed(value: number);")
-    public void seed(ScriptRun run, BigInteger value) {run.getRandom().setSeed(value.longValue());}
+    public void seed(ScriptRun run, Number value) {run.getRandom().setSeed(value.longValue());}
 }
@@ -1,14 +1,13 @@
 package archit.common.natives;
 
+import archit.common.Numbers;
 import archit.common.ScriptRun;
 import archit.common.stdlib.ArchitNative;
 
-import java.math.BigInteger;
-
 public class StringNatives {
 
     @ArchitNative("native length(text: string): number;")
-    public BigInteger length(ScriptRun run, String text) {return BigInteger.valueOf(text.length());}
+    public Number length(ScriptRun run, String text) {return Numbers.valueOf(text.length());}
 
     @ArchitNative("native upper(text: string): string;")
     public String toUpperCase(ScriptRun run, String text) {return text.toUpperCase();}
@@ -26,10 +25,10 @@ public class StringNatives {
     public Boolean endsWith(ScriptRun run, String text, String suffix) {return text.endsWith(suffix);}
 
     @ArchitNative("native index_of(text: string, part: string): number;")
-    public BigInteger indexOf(ScriptRun run, String text, String part) {return BigInteger.valueOf(text.indexOf(part));}
+    public Number indexOf(ScriptRun run, String text, String part) {return Numbers.valueOf(text.indexOf(part));}
 
     @ArchitNative("native substring(text: string, begin: number, end: number): string;")
-    public String substring(ScriptRun run, String text, BigInteger begin, BigInteger end) {return text.substring(begin.intValue(), end.intValue());}
+    public String substring(ScriptRun run, String text, Number begin, Number end) {return text.substring(begin.intValue(), end.intValue());}
 
     @ArchitNative("native replace(text: string, target: string, replacement: string): string;")
     public String replace(ScriptRun run, String text, String target, String replacement) {return text.replace(target, replacement);}
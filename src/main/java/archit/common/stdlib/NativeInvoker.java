@@ -0,0 +1,17 @@
+package archit.common.stdlib;
+
+import archit.common.ScriptRun;
+
+/**
+ * Entry point of a native function, bound once when the function is registered.
+ */
+@FunctionalInterface
+public interface NativeInvoker {
+    /**
+     * Calls the native function. Arguments are read in place from {@code args[offset]} onwards,
+     * so the caller does not have to copy them - the array itself must not be retained.
+     *
+     * @return the result of the call, null for functions without a return type
+     */
+    Object invoke(ScriptRun run, Object[] args, int offset);
+}
@@ -5,14 +5,17 @@ import archit.common.DamerauLevenshtein;
 import archit.common.Logging;
 import archit.common.Scope;
 import archit.common.ScriptErrorListener;
+import archit.common.ScriptParser;
 import archit.common.ScriptRun;
 import archit.common.Type;
 import archit.common.natives.*;
-import archit.parser.ArchitLexer;
 import archit.parser.ArchitParser;
 import archit.parser.ArchitParser.FunctionDeclContext;
 import archit.parser.ArchitParser.FunctionParamContext;
 import archit.parser.ArchitParser.VarDeclContext;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -24,12 +27,11 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.util.function.BiFunction;
+import java.util.TreeSet;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.antlr.v4.runtime.CharStreams;
-import org.antlr.v4.runtime.CommonTokenStream;
 import org.antlr.v4.runtime.RecognitionException;
 
 public class StandardLibrary implements Scope {
@@ -56,21 +58,38 @@ public class StandardLibrary implements Scope {
         }
     }
 
+    /**
+     * @return hash of the signatures of all registered natives, used to tell whether a program compiled
+     *         earlier still binds to the same functions
+     */
+    public long getSignatureHash() {
+        var signatures = new TreeSet<String>();
+        for (var functions : registeredFunctions.values()) {
+            for (var f : functions) {
+                signatures.add(f.name() + Arrays.toString(f.params()) + ":" + f.returnType());
+            }
+        }
+        for (var name : registeredDynamics.keySet()) {
+            signatures.add("dynamic " + name);
+        }
+        long hash = 1125899906842597L;
+        for (var signature : signatures) {
+            for (int i = 0; i < signature.length(); i++) {
+                hash = 31 * hash + signature.charAt(i);
+            }
+        }
+        return hash;
+    }
+
     private void registerNative(Method method, Object nativeObject) {
         if (!method.canAccess(nativeObject) || !method.isAnnotationPresent(ArchitNative.class)) {
             return;
         }
         String declaration = method.getAnnotation(ArchitNative.class).value();
-        ArchitLexer lexer = new ArchitLexer(CharStreams.fromString(declaration));
-        CommonTokenStream tokens = new CommonTokenStream(lexer);
-        ArchitParser parser = new ArchitParser(tokens);
-        parser.removeErrorListeners();
-        parser.addErrorListener(new ScriptErrorListener(null));
-        lexer.removeErrorListeners();
-        lexer.addErrorListener(new ScriptErrorListener(null));
-
         try {
-            var tree = parser.nativeDecl();
+            var tree = ScriptParser.get().parse(
+                CharStreams.fromString(declaration), new ScriptErrorListener(null), ArchitParser::nativeDecl
+            );
             var function = parseNativeDecl(tree, method, nativeObject);
             registeredFunctions.putIfAbsent(function.name(), new HashSet<>());
             boolean notDuplicate = registeredFunctions.get(function.name()).add(function);
@@ -144,18 +163,83 @@ public class StandardLibrary implements Scope {
             }
         }
 
-        BiFunction<ScriptRun, Object[], Object> call = (run, p) -> {
-            try {
-                var paramExt = new Object[1 + p.length];
-                paramExt[0] = run;
-                System.arraycopy(p, 0, paramExt, 1, p.length);
-                return method.invoke(nativeObject, paramExt);
-            } catch (IllegalAccessException | InvocationTargetException e) {
-                throw new IllegalStateException("Native function lambda caught an exception", e);
+        return ArchitFunction.fromFunction(name, returnType, params, bindNative(method, nativeObject), paramNames);
+    }  // clang-format on
+
+    /**
+     * Binds a native method to a {@link NativeInvoker} specialized for its parameter count,
+     * so that calls neither copy the arguments nor go through reflection.
+     */
+    static NativeInvoker bindNative(Method method, Object nativeObject) {
+        MethodHandle handle;
+        try {
+            handle = MethodHandles.lookup().unreflect(method);
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException("Native function is not accessible!", e);
+        }
+        if (nativeObject != null) {
+            handle = handle.bindTo(nativeObject);
+        }
+        int arity = method.getParameterCount() - 1;
+        // (Object, Object...)Object - typ wymagany przez invokeExact, void jest zamieniany na null
+        final MethodHandle h = handle.asType(MethodType.genericMethodType(arity + 1));
+        return switch (arity) {
+            case 0 -> (run, a, o) -> {
+                try {
+                    return (Object) h.invokeExact((Object) run);
+                } catch (Throwable t) {  // NOSONAR
+                    throw rethrow(t);
+                }
+            };
+            case 1 -> (run, a, o) -> {
+                try {
+                    return (Object) h.invokeExact((Object) run, a[o]);
+                } catch (Throwable t) {  // NOSONAR
+                    throw rethrow(t);
+                }
+            };
+            case 2 -> (run, a, o) -> {
+                try {
+                    return (Object) h.invokeExact((Object) run, a[o], a[o + 1]);
+                } catch (Throwable t) {  // NOSONAR
+                    throw rethrow(t);
+                }
+            };
+            case 3 -> (run, a, o) -> {
+                try {
+                    return (Object) h.invokeExact((Object) run, a[o], a[o + 1], a[o + 2]);
+                } catch (Throwable t) {  // NOSONAR
+                    throw rethrow(t);
+                }
+            };
+            case 4 -> (run, a, o) -> {
+                try {
+                    return (Object) h.invokeExact((Object) run, a[o], a[o + 1], a[o + 2], a[o + 3]);
+                } catch (Throwable t) {  // NOSONAR
+                    throw rethrow(t);
+                }
+            };
+            default -> {
+                var spread = h.asSpreader(1, Object[].class, arity);
+                yield (run, a, o) -> {
+                    try {
+                        return spread.invoke(run, Arrays.copyOfRange(a, o, o + arity));
+                    } catch (Throwable t) {  // NOSONAR
+                        throw rethrow(t);
+                    }
+                };
             }
         };
-        return ArchitFunction.fromFunction(name, returnType, params, call, paramNames);
-    }  // clang-format on
+    }
+
+    private static RuntimeException rethrow(Throwable t) {
+        if (t instanceof RuntimeException e) {
+            return e;
+        } else if (t instanceof Error e) {
+            throw e;
+        }
+        return new IllegalStateException("Native function threw a checked exception", t);
+    }
 
     private void registerDynamic(Method method, Object nativeObject) {
         if (!method.canAccess(nativeObject) || !method.isAnnotationPresent(ArchitDynamic.class)) {
@@ -0,0 +1,368 @@
+package archit.common.visitors;
+
+import archit.common.ArchitFunction;
+import archit.common.vm.CompiledProgram;
+import archit.common.vm.InterpolationTemplate;
+import archit.common.vm.Opcode;
+import archit.parser.ArchitParser;
+import archit.parser.ArchitParserBaseVisitor;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import static archit.common.vm.Opcode.*;
+
+/**
+ * Lowers a type-checked parse tree into a {@link CompiledProgram}. Relies on {@link InfoTables}
+ * filled by {@link TypeCheckingVisitor}, so no semantic errors are expected at this stage.
+ */
+public class CompilingVisitor extends ArchitParserBaseVisitor<Void> {
+    private final InfoTables tables;
+
+    private int[] code = new int[256];
+    private int[] lines = new int[256];
+    private int[] columns = new int[256];
+    private int size = 0;
+
+    private final List<Object> constants = new ArrayList<>();
+    private final Map<Object, Integer> constantIndices = new HashMap<>();
+    private final Map<Object, Integer> functionConstantIndices = new IdentityHashMap<>();
+
+    // funkcje skryptowe są kompilowane dopiero po programie głównym, w kolejności pierwszego wywołania
+    private final List<ArchitParser.FunctionDeclContext> functionDecls = new ArrayList<>();
+    private final List<ArchitFunction> functionSignatures = new ArrayList<>();
+    private final Map<ArchitParser.FunctionDeclContext, Integer> functionIndices = new HashMap<>();
+
+    private final Deque<Loop> loops = new ArrayDeque<>();
+
+    private record Loop(int continueTarget, List<Integer> breakJumps) {}
+
+    public CompilingVisitor(InfoTables tables) {
+        this.tables = tables;
+    }
+
+    public CompiledProgram compile(ArchitParser.ProgramContext tree) {
+        visit(tree);
+        emit(HALT, 0, tree);
+
+        var entries = new ArrayList<Integer>();
+        for (int i = 0; i < functionDecls.size(); i++) {  // lista rośnie w trakcie kompilacji ciał funkcji
+            entries.add(size);
+            compileFunctionBody(functionDecls.get(i));
+        }
+
+        var functions = new CompiledProgram.Function[functionDecls.size()];
+        for (int i = 0; i < functions.length; i++) {
+            var decl = functionDecls.get(i);
+            var signature = functionSignatures.get(i);
+            functions[i] = new CompiledProgram.Function(
+                // bez deklaracji z drzewa składniowego - program w pamięci podręcznej trzymałby całe drzewo i tokeny
+                new ArchitFunction(
+                    signature.name(), signature.returnType(), signature.params(), false, null, signature.paramNames()
+                ),
+                entries.get(i),
+                depthOf(decl),
+                tables.getFrameSize(decl),
+                decl.getStart().getLine(),
+                decl.getStart().getCharPositionInLine()
+            );
+        }
+        return new CompiledProgram(
+            Arrays.copyOf(code, size),
+            constants.toArray(),
+            functions,
+            tables.getFrameSize(tree),
+            Arrays.copyOf(lines, size),
+            Arrays.copyOf(columns, size)
+        );
+    }
+
+    private void compileFunctionBody(ArchitParser.FunctionDeclContext ctx) {
+        List<ArchitParser.FunctionParamContext> params =
+            ctx.functionParams() != null ? ctx.functionParams().functionParam() : List.of();
+        // argumenty leżą na stosie w kolejności wywołania, więc zdejmujemy je od końca
+        for (int i = params.size() - 1; i >= 0; i--) {
+            var param = params.get(i);
+            emit(STORE, address(param.symbol()), param);
+        }
+        visit(ctx.scopeStat());
+        emit(RETURN, 0, ctx);
+    }
+
+    private static int depthOf(ArchitParser.FunctionDeclContext decl) {
+        int depth = 1;
+        for (var p = decl.getParent(); p != null; p = p.getParent()) {
+            if (p instanceof ArchitParser.FunctionDeclContext) {
+                depth++;
+            }
+        }
+        return depth;
+    }
+
+    private int address(ArchitParser.SymbolContext symbol) {
+        var slot = tables.getSlots().get(symbol);
+        return Opcode.address(slot.depth(), slot.index());
+    }
+
+    private int emit(Opcode op, int operand, ParserRuleContext ctx) {
+        if (size == code.length) {
+            code = Arrays.copyOf(code, size * 2);
+            lines = Arrays.copyOf(lines, size * 2);
+            columns = Arrays.copyOf(columns, size * 2);
+        }
+        code[size] = op.encode(operand);
+        lines[size] = ctx.getStart().getLine();
+        columns[size] = ctx.getStart().getCharPositionInLine();
+        return size++;
+    }
+
+    private void patch(int instruction, int target) {
+        code[instruction] = Opcode.decode(code[instruction]).encode(target);
+    }
+
+    private int constant(Object value) {
+        return constantIndices.computeIfAbsent(value, v -> {
+            constants.add(v);
+            return constants.size() - 1;
+        });
+    }
+
+    private int nativeConstant(ArchitFunction function) {
+        return functionConstantIndices.computeIfAbsent(function, f -> {
+            constants.add(f);
+            return constants.size() - 1;
+        });
+    }
+
+    private int functionIndex(ArchitFunction function) {
+        var decl = (ArchitParser.FunctionDeclContext) function.callInfo();
+        return functionIndices.computeIfAbsent(decl, d -> {
+            functionDecls.add(d);
+            functionSignatures.add(function);
+            return functionDecls.size() - 1;
+        });
+    }
+
+    @Override
+    public Void visitFunctionDecl(ArchitParser.FunctionDeclContext ctx) {
+        return null;  // ciało kompilowane przy pierwszym wywołaniu, patrz compile()
+    }
+
+    @Override
+    public Void visitStatement(ArchitParser.StatementContext ctx) {
+        if (ctx.functionCall() != null) {
+            visit(ctx.functionCall());
+            if (tables.getFunctions().get(ctx.functionCall()).returnType() != null) {
+                emit(POP, 0, ctx);
+            }
+            return null;
+        }
+        if (ctx.functionCallNoBrackets() != null) {
+            visit(ctx.functionCallNoBrackets());
+            if (tables.getFunctions().get(ctx.functionCallNoBrackets()).returnType() != null) {
+                emit(POP, 0, ctx);
+            }
+            return null;
+        }
+        return visitChildren(ctx);
+    }
+
+    @Override
+    public Void visitVarDecl(ArchitParser.VarDeclContext ctx) {
+        visit(ctx.expr() != null ? ctx.expr() : ctx.functionCallNoBrackets());
+        emit(STORE, address(ctx.symbol()), ctx);
+        return null;
+    }
+
+    @Override
+    public Void visitAssignStat(ArchitParser.AssignStatContext ctx) {
+        int address = address(ctx.symbol());
+        var op = tables.getOperators().get(ctx);
+        if (op != null) {
+            emit(LOAD, address, ctx.symbol());
+        }
+        visit(ctx.expr() != null ? ctx.expr() : ctx.functionCallNoBrackets());
+        if (op != null) {
+            emit(BINARY, op.ordinal(), ctx);
+        }
+        emit(STORE, address, ctx);
+        return null;
+    }
+
+    @Override
+    public Void visitIfStat(ArchitParser.IfStatContext ctx) {
+        visit(ctx.expr() != null ? ctx.expr() : ctx.functionCallNoBrackets());
+        int toElse = emit(JUMP_IF_FALSE, 0, ctx);
+        visit(ctx.scopeStat());
+        if (ctx.elseStat() == null) {
+            patch(toElse, size);
+            return null;
+        }
+        int toEnd = emit(JUMP, 0, ctx.elseStat());
+        patch(toElse, size);
+        visit(ctx.elseStat());
+        patch(toEnd, size);
+        return null;
+    }
+
+    @Override
+    public Void visitWhileStat(ArchitParser.WhileStatContext ctx) {
+        int condition = size;
+        visit(ctx.expr() != null ? ctx.expr() : ctx.functionCallNoBrackets());
+        int toEnd = emit(JUMP_IF_FALSE, 0, ctx);
+
+        var loop = new Loop(condition, new ArrayList<>());
+        loops.push(loop);
+        visit(ctx.scopeStat());
+        loops.pop();
+
+        emit(JUMP, condition, ctx);
+        patch(toEnd, size);
+        loop.breakJumps().forEach(jump -> patch(jump, size));
+        return null;
+    }
+
+    @Override
+    public Void visitRepeatStat(ArchitParser.RepeatStatContext ctx) {
+        visit(ctx.expr() != null ? ctx.expr() : ctx.functionCallNoBrackets());
+        emit(REPEAT_INIT, 0, ctx);
+        int next = emit(REPEAT_NEXT, 0, ctx);
+
+        var loop = new Loop(next, new ArrayList<>());
+        loops.push(loop);
+        visit(ctx.scopeStat());
+        loops.pop();
+
+        emit(JUMP, next, ctx);
+        // zarówno wyczerpanie licznika, jak i break kończą się zdjęciem ramki pętli
+        patch(next, size);
+        loop.breakJumps().forEach(jump -> patch(jump, size));
+        emit(REPEAT_END, 0, ctx);
+        return null;
+    }
+
+    @Override
+    public Void visitBreakStat(ArchitParser.BreakStatContext ctx) {
+        loops.peek().breakJumps().add(emit(JUMP, 0, ctx));
+        return null;
+    }
+
+    @Override
+    public Void visitContinueStat(ArchitParser.ContinueStatContext ctx) {
+        emit(JUMP, loops.peek().continueTarget(), ctx);
+        return null;
+    }
+
+    @Override
+    public Void visitReturnStat(ArchitParser.ReturnStatContext ctx) {
+        if (ctx.expr() == null && ctx.functionCallNoBrackets() == null) {
+            emit(RETURN, 0, ctx);
+            return null;
+        }
+        visit(ctx.expr() != null ? ctx.expr() : ctx.functionCallNoBrackets());
+        emit(RETURN_VALUE, 0, ctx);
+        return null;
+    }
+
+    private void compileCall(ParserRuleContext ctx, List<ArchitParser.ExprContext> args) {
+        args.forEach(this::visit);
+        var function = tables.getFunctions().get(ctx);
+        if (function.isNative()) {
+            emit(CALL_NATIVE, nativeConstant(function), ctx);
+        } else {
+            emit(CALL, functionIndex(function), ctx);
+        }
+    }
+
+    @Override
+    public Void visitFunctionCall(ArchitParser.FunctionCallContext ctx) {
+        compileCall(ctx, ctx.expr());
+        return null;
+    }
+
+    @Override
+    public Void visitFunctionCallNoBrackets(ArchitParser.FunctionCallNoBracketsContext ctx) {
+        compileCall(ctx, ctx.expr());
+        return null;
+    }
+
+    @Override
+    public Void visitExpr(ArchitParser.ExprContext ctx) {
+        var literal = tables.getConstants().get(ctx);
+        if (literal != null) {
+            emit(PUSH_CONST, constant(literal), ctx);
+        } else if (ctx.symbol() != null) {
+            emit(LOAD, address(ctx.symbol()), ctx);
+        } else if (ctx.interpolation() != null || ctx.materialExpr() != null || ctx.functionCall() != null
+                   || ctx.listExpr() != null || ctx.mapExpr() != null) {
+            visitChildren(ctx);
+        } else {
+            compileOperator(ctx);
+        }
+        return null;
+    }
+
+    private void compileOperator(ArchitParser.ExprContext ctx) {
+        var op = tables.getOperators().get(ctx);
+        if (ctx.expr().size() == 1) {
+            visit(ctx.expr(0));
+            if (op != Operators.NO_OP) {  // nawiasy nie generują żadnej instrukcji
+                emit(UNARY, op.ordinal(), ctx);
+            }
+        } else {
+            visit(ctx.expr(0));
+            visit(ctx.expr(1));
+            emit(BINARY, op.ordinal(), ctx);
+        }
+    }
+
+    @Override
+    public Void visitMaterialExpr(ArchitParser.MaterialExprContext ctx) {
+        emit(PUSH_CONST, constant(tables.getConstants().get(ctx)), ctx);
+        return null;
+    }
+
+    @Override
+    public Void visitListExpr(ArchitParser.ListExprContext ctx) {
+        ctx.expr().forEach(this::visit);
+        emit(MAKE_LIST, ctx.expr().size(), ctx);
+        return null;
+    }
+
+    @Override
+    public Void visitMapExpr(ArchitParser.MapExprContext ctx) {
+        ctx.expr().forEach(this::visit);
+        emit(MAKE_MAP, ctx.expr().size() / 2, ctx);
+        return null;
+    }
+
+    @Override
+    public Void visitInterpolation(ArchitParser.InterpolationContext ctx) {
+        // tekst pomiędzy kolejnymi wyrażeniami, zawsze o jeden fragment więcej niż wyrażeń
+        var fragments = new ArrayList<String>();
+        var current = new StringBuilder();
+        for (var c : ctx.children) {
+            if (c instanceof TerminalNode t) {
+                if (t.getSymbol().getType() == ArchitParser.INTER_CONTENT) {
+                    current.append(t.getText());
+                } else if (t.getSymbol().getType() == ArchitParser.INTER_ESCAPE) {
+                    current.append(t.getText().replace("\\\\", "\\").replace("\\'", "'"));
+                }
+            } else if (c instanceof ArchitParser.ExprContext expr) {
+                visit(expr);
+                fragments.add(current.toString());
+                current.setLength(0);
+            }
+        }
+        fragments.add(current.toString());
+        emit(INTERPOLATE, constant(new InterpolationTemplate(fragments.toArray(String[] ::new))), ctx);
+        return null;
+    }
+}
@@ -5,6 +5,9 @@ import archit.parser.ArchitParser.AssignStatContext;
 import archit.parser.ArchitParser.ExprContext;
 import archit.parser.ArchitParser.FunctionCallContext;
 import archit.parser.ArchitParser.FunctionCallNoBracketsContext;
+import archit.parser.ArchitParser.FunctionDeclContext;
+import archit.parser.ArchitParser.MaterialExprContext;
+import archit.parser.ArchitParser.ProgramContext;
 import archit.parser.ArchitParser.SymbolContext;
 import java.util.Collections;
 import java.util.HashMap;
@@ -16,6 +19,18 @@ public class InfoTables {
     private final Map<SymbolContext, Integer> symbolsToIds = new HashMap<>();
     private final Map<ParserRuleContext, ArchitFunction> callsToFunctions = new HashMap<>();
     private final Map<ParserRuleContext, Operators> exprsToOperators = new HashMap<>();
+    private final Map<SymbolContext, Slot> symbolsToSlots = new HashMap<>();
+    private final Map<ParserRuleContext, Integer> frameSizes = new HashMap<>();
+    private final Map<ParserRuleContext, Object> literalsToConstants = new HashMap<>();
+    private final Map<Object, Object> internedConstants = new HashMap<>();
+
+    /**
+     * Runtime address of a variable.
+     *
+     * @param depth lexical function nesting level of the declaring frame, 0 for globals
+     * @param index position of the variable inside that frame
+     */
+    public record Slot(int depth, int index) {}
 
     public Map<SymbolContext, Integer> getSymbols() {
         return Collections.unmodifiableMap(symbolsToIds);
@@ -29,8 +44,35 @@ public class InfoTables {
         return Collections.unmodifiableMap(exprsToOperators);
     }
 
-    public void addSymbolMapping(SymbolContext symbol, int id) {
+    public Map<SymbolContext, Slot> getSlots() {
+        return Collections.unmodifiableMap(symbolsToSlots);
+    }
+
+    /**
+     * @return number of variable slots needed by a {@link ProgramContext} or {@link FunctionDeclContext} frame
+     */
+    public int getFrameSize(ParserRuleContext frame) {
+        return frameSizes.getOrDefault(frame, 0);
+    }
+
+    /**
+     * @return already decoded values of literal expressions, equal values share a single instance
+     */
+    public Map<ParserRuleContext, Object> getConstants() {
+        return Collections.unmodifiableMap(literalsToConstants);
+    }
+
+    public void addSymbolMapping(SymbolContext symbol, int id, Slot slot) {
         symbolsToIds.put(symbol, id);
+        symbolsToSlots.put(symbol, slot);
+    }
+
+    public void addFrameSize(ProgramContext program, int size) {
+        frameSizes.put(program, size);
+    }
+
+    public void addFrameSize(FunctionDeclContext function, int size) {
+        frameSizes.put(function, size);
     }
 
     public void addFunctionMapping(FunctionCallContext call, ArchitFunction function) {
@@ -41,6 +83,18 @@ public class InfoTables {
         callsToFunctions.put(call, function);
     }
 
+    public void addConstantMapping(ExprContext literal, Object value) {
+        literalsToConstants.put(literal, intern(value));
+    }
+
+    public void addConstantMapping(MaterialExprContext literal, Object value) {
+        literalsToConstants.put(literal, intern(value));
+    }
+
+    private Object intern(Object value) {
+        return internedConstants.computeIfAbsent(value, v -> v);
+    }
+
     public void addOperatorMapping(ExprContext expr, Operators operator) {
         exprsToOperators.put(expr, operator);
     }
@@ -1,33 +1,33 @@
 package archit.common.visitors;
 
-import java.math.BigInteger;
+import archit.common.Numbers;
 import java.util.List;
 import java.util.Map;
 import java.util.function.BiFunction;
 
 public enum Operators {
     // Arithmetic
-    ADD_NUMBERS((a, b) -> ((BigInteger) a).add((BigInteger) b)),
+    ADD_NUMBERS((a, b) -> Numbers.add((Number) a, (Number) b)),
     ADD_REALS((a, b) -> ((Double) a) + ((Double) b)),
-    SUBTRACT_NUMBERS((a, b) -> ((BigInteger) a).subtract((BigInteger) b)),
+    SUBTRACT_NUMBERS((a, b) -> Numbers.subtract((Number) a, (Number) b)),
     SUBTRACT_REALS((a, b) -> ((Double) a) - ((Double) b)),
-    MULTIPLY_NUMBERS((a, b) -> ((BigInteger) a).multiply((BigInteger) b)),
+    MULTIPLY_NUMBERS((a, b) -> Numbers.multiply((Number) a, (Number) b)),
     MULTIPLY_REALS((a, b) -> ((Double) a) * ((Double) b)),
-    DIVIDE_NUMBERS((a, b) -> ((BigInteger) a).divide((BigInteger) b)),
+    DIVIDE_NUMBERS((a, b) -> Numbers.divide((Number) a, (Number) b)),
     DIVIDE_REALS((a, b) -> ((Double) a) / ((Double) b)),
-    MODULO((a, b) -> ((BigInteger) a).mod((BigInteger) b)),
-    POWER_NUMBERS((a, b) -> ((BigInteger) a).pow(((BigInteger) b).intValue())),
+    MODULO((a, b) -> Numbers.mod((Number) a, (Number) b)),
+    POWER_NUMBERS((a, b) -> Numbers.pow((Number) a, (Number) b)),
     POWER_REALS((a, b) -> Math.pow((Double) a, (Double) b)),
 
     // Comparison
     EQUALS(Object::equals),
     NOT_EQUALS((a, b) -> !a.equals(b)),
-    GREATER_NUMBERS((a, b) -> ((BigInteger) a).compareTo((BigInteger) b) > 0),
-    GREATER_EQUALS_NUMBERS((a, b) -> ((BigInteger) a).compareTo((BigInteger) b) >= 0),
+    GREATER_NUMBERS((a, b) -> Numbers.compare((Number) a, (Number) b) > 0),
+    GREATER_EQUALS_NUMBERS((a, b) -> Numbers.compare((Number) a, (Number) b) >= 0),
     GREATER_REALS((a, b) -> ((Double) a) > ((Double) b)),
     GREATER_EQUALS_REALS((a, b) -> ((Double) a) >= ((Double) b)),
-    LESS_NUMBERS((a, b) -> ((BigInteger) a).compareTo((BigInteger) b) < 0),
-    LESS_EQUALS_NUMBERS((a, b) -> ((BigInteger) a).compareTo((BigInteger) b) <= 0),
+    LESS_NUMBERS((a, b) -> Numbers.compare((Number) a, (Number) b) < 0),
+    LESS_EQUALS_NUMBERS((a, b) -> Numbers.compare((Number) a, (Number) b) <= 0),
     LESS_REALS((a, b) -> ((Double) a) < ((Double) b)),
     LESS_EQUALS_REALS((a, b) -> ((Double) a) <= ((Double) b)),
 
@@ -37,11 +37,11 @@ public enum Operators {
     NOT((a, b) -> !((Boolean) a)),
 
     // Indexing / Access
-    LIST_INDEX((a, b) -> ((List<?>) a).get(((BigInteger) b).intValue())),
+    LIST_INDEX((a, b) -> ((List<?>) a).get(((Number) b).intValue())),
     MAP_GET((a, b) -> ((Map<?, ?>) a).get(b)),
 
     // Unary minus
-    NEGATE_NUMBER((a, b) -> ((BigInteger) a).negate()),
+    NEGATE_NUMBER((a, b) -> Numbers.negate((Number) a)),
     NEGATE_REAL((a, b) -> - ((Double) a)),
     NO_OP((a, b) -> a);
 
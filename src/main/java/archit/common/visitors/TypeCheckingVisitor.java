@@ -17,6 +17,9 @@ public class TypeCheckingVisitor extends ArchitParserBaseVisitor<Type> {
     private final InfoTables tables = new InfoTables();
     private Scope currentScope;
     private int nextVarId = 0;
+    private final List<InfoTables.Slot> slotsById = new ArrayList<>();
+    private int functionDepth = 0;
+    private int nextSlot = 0;
 
     public TypeCheckingVisitor(ScriptRun run) {
         this.run = run;
@@ -36,6 +39,18 @@ public class TypeCheckingVisitor extends ArchitParserBaseVisitor<Type> {
         return tables;
     }
 
+    private int declareSlot() {
+        slotsById.add(new InfoTables.Slot(functionDepth, nextSlot++));
+        return nextVarId++;
+    }
+
+    @Override
+    public Type visitProgram(ArchitParser.ProgramContext ctx) {
+        visitChildren(ctx);
+        tables.addFrameSize(ctx, nextSlot);
+        return null;
+    }
+
     @Override
     public Type visitScopeStat(ArchitParser.ScopeStatContext ctx) {
         pushScope();
@@ -94,14 +109,14 @@ public class TypeCheckingVisitor extends ArchitParserBaseVisitor<Type> {
                 run, TYPE_ERROR, ctx, "Cannot assign {} to variable '{}' of type {}", init, name, declared
             );
         }
-        int id = nextVarId++;
+        int id = declareSlot();
         boolean ok = currentScope.defineVariable(name, declared, id, ctx);
         if (!ok) {
             throw new ScriptException(
                 run, NAME_ERROR, ctx.symbol(), "Variable '{}' already defined in this scope", name
             );
         }
-        tables.addSymbolMapping(ctx.symbol(), id);
+        tables.addSymbolMapping(ctx.symbol(), id, slotsById.get(id));
         return null;
     }
 
@@ -201,7 +216,7 @@ public class TypeCheckingVisitor extends ArchitParserBaseVisitor<Type> {
                 );
             }
         }
-        tables.addSymbolMapping(ctx, varRes.id());
+        tables.addSymbolMapping(ctx, varRes.id(), slotsById.get(varRes.id()));
         return varRes.type();
     }
 
@@ -282,14 +297,22 @@ public class TypeCheckingVisitor extends ArchitParserBaseVisitor<Type> {
         }
 
         pushScope();
+        // każde wywołanie funkcji dostaje własną ramkę, numerowaną od zera
+        int outerSlot = nextSlot;
+        nextSlot = 0;
+        functionDepth++;
 
         for (int i = 0; i < params.size(); i++) {
-            int id = nextVarId++;
+            int id = declareSlot();
             var p = params.get(i);
             currentScope.defineVariable(p.symbol().getText(), paramTypes[i], id, p);
-            tables.addSymbolMapping(p.symbol(), id);
+            tables.addSymbolMapping(p.symbol(), id, slotsById.get(id));
         }
         visit(ctx.scopeStat());
+        tables.addFrameSize(ctx, nextSlot);
+
+        functionDepth--;
+        nextSlot = outerSlot;
         popScope();
         return null;
     }
@@ -381,17 +404,33 @@ public class TypeCheckingVisitor extends ArchitParserBaseVisitor<Type> {
 
     @Override
     public Type visitExpr(ArchitParser.ExprContext ctx) {
-        if (ctx.NUMBER() != null) return Type.number;
-        if (ctx.REAL() != null) return Type.real;
-        if (ctx.STRING() != null) return Type.string;
-        if (ctx.LOGIC() != null) return Type.logic;
+        if (ctx.NUMBER() != null) {
+            tables.addConstantMapping(ctx, Numbers.parse(ctx.NUMBER().getText()));
+            return Type.number;
+        }
+        if (ctx.REAL() != null) {
+            tables.addConstantMapping(ctx, Double.parseDouble(ctx.REAL().getText().replace("_", "")));
+            return Type.real;
+        }
+        if (ctx.STRING() != null) {
+            String fullText = ctx.STRING().getText().replace("\\\\", "\\").replace("\\'", "'");
+            tables.addConstantMapping(ctx, fullText.substring(1, fullText.length() - 1));  // bez cudzysłowów
+            return Type.string;
+        }
+        if (ctx.LOGIC() != null) {
+            tables.addConstantMapping(ctx, Boolean.parseBoolean(ctx.LOGIC().getText()));
+            return Type.logic;
+        }
 
         // material
         if (ctx.materialExpr() != null) return visit(ctx.materialExpr());
         // list/map/enum
         if (ctx.listExpr() != null) return visit(ctx.listExpr());
         if (ctx.mapExpr() != null) return visit(ctx.mapExpr());
-        if (ctx.enumExpr() != null) return visit(ctx.enumExpr());
+        if (ctx.enumExpr() != null) {
+            tables.addConstantMapping(ctx, ctx.enumExpr().ID().getText());
+            return visit(ctx.enumExpr());
+        }
         if (ctx.op != null && ctx.expr().size() == 1 && ctx.getText().startsWith("(")) {
             tables.addOperatorMapping(ctx, Operators.NO_OP);
             return visit(ctx.expr(0));
@@ -671,6 +710,11 @@ public class TypeCheckingVisitor extends ArchitParserBaseVisitor<Type> {
     @Override
     public Type visitMaterialExpr(ArchitParser.MaterialExprContext ctx) {
         // ID? ':' ID
+        if (ctx.ID().size() == 2) {
+            tables.addConstantMapping(ctx, Material.of(ctx.ID(0).getText(), ctx.ID(1).getText()));
+        } else {
+            tables.addConstantMapping(ctx, Material.of(ctx.ID(0).getText()));
+        }
         return Type.material;
     }
 
@@ -0,0 +1,30 @@
+package archit.common.vm;
+
+import archit.common.ArchitFunction;
+
+/**
+ * Result of {@link archit.common.visitors.CompilingVisitor} - a flat instruction stream with its constant pool,
+ * script function table and a line table mapping every instruction back to the source.
+ */
+public record CompiledProgram(  // NOSONAR
+    int[] code,
+    Object[] constants,
+    Function[] functions,
+    int globalFrameSize,
+    int[] lines,
+    int[] columns
+) {
+    /**
+     * @param signature name and types of the function, without its parse tree declaration ({@code callInfo} is null)
+     * @param entry index of the first instruction of the function body
+     * @param depth lexical nesting level of the function, 1 for functions declared at the top level
+     * @param frameSize number of variable slots used by a single call
+     * @param line line of the declaration, used for runtime errors raised on call
+     * @param column column of the declaration
+     */
+    public record Function(ArchitFunction signature, int entry, int depth, int frameSize, int line, int column) {}
+
+    public int size() {
+        return code.length;
+    }
+}
@@ -0,0 +1,24 @@
+package archit.common.vm;
+
+import java.util.Arrays;
+
+/**
+ * Constant pool entry of {@link Opcode#INTERPOLATE} - text fragments between the interpolated values,
+ * wrapped so that equal templates can share a slot.
+ */
+public record InterpolationTemplate(String[] fragments) {  // NOSONAR
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof InterpolationTemplate other && Arrays.equals(fragments, other.fragments);
+    }
+
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(fragments);
+    }
+
+    @Override
+    public String toString() {
+        return String.join("{}", fragments);
+    }
+}
@@ -0,0 +1,91 @@
+package archit.common.vm;
+
+/**
+ * Instruction set of the archit virtual machine. Every instruction is a single {@code int}:
+ * the lowest 8 bits hold the opcode ordinal, the remaining 24 bits hold a signed operand.
+ */
+public enum Opcode {
+    /** Pushes {@code constants[operand]}. */
+    PUSH_CONST,
+    /** Pushes the value of the variable at the given {@link #address}. */
+    LOAD,
+    /** Pops a value and stores it in the variable at the given {@link #address}. */
+    STORE,
+    /** Discards the top of the stack. */
+    POP,
+    /** Applies the unary {@code Operators[operand]} to the top of the stack. */
+    UNARY,
+    /** Pops two values and pushes the result of the binary {@code Operators[operand]}. */
+    BINARY,
+    /** Pops {@code operand} values and pushes them as a list. */
+    MAKE_LIST,
+    /** Pops {@code operand} key-value pairs and pushes them as a map. */
+    MAKE_MAP,
+    /** Pops values and joins them with the string fragments stored in {@code constants[operand]}. */
+    INTERPOLATE,
+    /** Unconditionally jumps to the operand. */
+    JUMP,
+    /** Pops a logic value and jumps to the operand if it is false. */
+    JUMP_IF_FALSE,
+    /** Pops the repeat count and opens a loop frame holding it as a counter. */
+    REPEAT_INIT,
+    /** Decrements the counter of the innermost loop frame, or jumps to the operand once it runs out. */
+    REPEAT_NEXT,
+    /** Closes the innermost loop frame. */
+    REPEAT_END,
+    /** Calls the native function stored in {@code constants[operand]}. */
+    CALL_NATIVE,
+    /** Calls the script function with the given index in the function table. */
+    CALL,
+    /** Returns from a void function, closing every loop frame it opened. */
+    RETURN,
+    /** Returns the top of the stack, closing every loop frame the function opened. */
+    RETURN_VALUE,
+    /** Ends the program. */
+    HALT;
+
+    static final Opcode[] VALUES = values();
+
+    public static final int OPERAND_BITS = 24;
+    public static final int MAX_OPERAND = (1 << (OPERAND_BITS - 1)) - 1;
+
+    private static final int SLOT_BITS = 16;
+    private static final int MAX_DEPTH = MAX_OPERAND >> SLOT_BITS;
+    private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+
+    public int encode(int operand) {
+        if (operand < 0 || operand > MAX_OPERAND) {
+            throw new IllegalStateException("Instruction operand out of range: " + operand);
+        }
+        return (operand << 8) | ordinal();
+    }
+
+    /**
+     * Packs a variable address into a single operand.
+     *
+     * @param depth lexical function nesting level of the frame holding the variable
+     * @param slot index of the variable in that frame
+     */
+    public static int address(int depth, int slot) {
+        if (depth > MAX_DEPTH || slot > SLOT_MASK) {
+            throw new IllegalStateException("Variable address out of range: " + depth + ", " + slot);
+        }
+        return (depth << SLOT_BITS) | slot;
+    }
+
+    public static int depth(int address) {
+        return address >>> SLOT_BITS;
+    }
+
+    public static int slot(int address) {
+        return address & SLOT_MASK;
+    }
+
+    public static Opcode decode(int instruction) {
+        return VALUES[instruction & 0xFF];
+    }
+
+    public static int operand(int instruction) {
+        return instruction >> 8;
+    }
+}
@@ -0,0 +1,338 @@
+package archit.common.vm;
+
+import archit.common.ArchitFunction;
+import archit.common.Material;
+import archit.common.Type;
+import archit.common.stdlib.StandardLibrary;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Binary format of a {@link CompiledProgram} saved next to its script, so that a script can be run without
+ * parsing it after a restart. The file holds the instruction stream with its line table, the constant pool,
+ * the script functions with their frame layout and references to natives by name and parameter types,
+ * which are resolved again when loading.
+ * <p>
+ * A file is only valid for the source it was compiled from (checked by hash) and for the set of native
+ * signatures it was compiled against - otherwise the script has to be compiled from source again.
+ */
+public final class ProgramFile {
+    private ProgramFile() {}
+
+    public static final String DIRECTORY = ".compiled";
+    private static final int MAGIC = 0x41524348;  // "ARCH"
+    private static final short FORMAT_VERSION = 1;
+
+    // stałe w puli
+    private static final byte CONST_LONG = 0;
+    private static final byte CONST_BIG_INTEGER = 1;
+    private static final byte CONST_DOUBLE = 2;
+    private static final byte CONST_STRING = 3;
+    private static final byte CONST_BOOLEAN = 4;
+    private static final byte CONST_MATERIAL = 5;
+    private static final byte CONST_TEMPLATE = 6;
+    private static final byte CONST_NATIVE = 7;
+
+    // typy w sygnaturach funkcji
+    private static final byte TYPE_NONE = -1;
+    private static final byte TYPE_NUMBER = 0;
+    private static final byte TYPE_REAL = 1;
+    private static final byte TYPE_LOGIC = 2;
+    private static final byte TYPE_STRING = 3;
+    private static final byte TYPE_MATERIAL = 4;
+    private static final byte TYPE_LIST = 5;
+    private static final byte TYPE_MAP = 6;
+    private static final byte TYPE_LITERAL = 7;
+    private static final byte TYPE_EMPTY_LIST = 8;
+    private static final byte TYPE_EMPTY_MAP = 9;
+
+    /**
+     * @return location of the compiled form of the script
+     */
+    public static Path pathFor(Path script) {
+        return script.resolveSibling(DIRECTORY).resolve(script.getFileName() + "c");
+    }
+
+    public static void write(Path file, CompiledProgram program, byte[] sourceHash, StandardLibrary library)
+        throws IOException {
+        Files.createDirectories(file.getParent());
+        // zapis do pliku tymczasowego, aby równoległy odczyt nigdy nie trafił na niepełny plik
+        var temporary = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try (var out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary)))) {
+            out.writeInt(MAGIC);
+            out.writeShort(FORMAT_VERSION);
+            out.writeLong(library.getSignatureHash());
+            out.writeByte(sourceHash.length);
+            out.write(sourceHash);
+            out.writeInt(program.globalFrameSize());
+
+            out.writeInt(program.size());
+            writeInts(out, program.code());
+            writeInts(out, program.lines());
+            writeInts(out, program.columns());
+
+            out.writeInt(program.constants().length);
+            for (var constant : program.constants()) {
+                writeConstant(out, constant);
+            }
+
+            out.writeInt(program.functions().length);
+            for (var function : program.functions()) {
+                var signature = function.signature();
+                writeString(out, signature.name());
+                writeType(out, signature.returnType());
+                out.writeInt(signature.params().length);
+                for (int i = 0; i < signature.params().length; i++) {
+                    writeType(out, signature.params()[i]);
+                    writeString(out, signature.paramNames()[i]);
+                }
+                out.writeInt(function.entry());
+                out.writeInt(function.depth());
+                out.writeInt(function.frameSize());
+                out.writeInt(function.line());
+                out.writeInt(function.column());
+            }
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads the file and decodes the program from it.
+     *
+     * @return the program, or null if the file is missing, older than the script, compiled from a different
+     *         source or against different natives
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static CompiledProgram read(Path file, Path script, byte[] sourceHash, StandardLibrary library)
+        throws IOException {
+        if (!Files.isRegularFile(file)
+            || Files.getLastModifiedTime(file).compareTo(Files.getLastModifiedTime(script)) < 0) {
+            return null;
+        }
+        // cały plik jest i tak kopiowany do tablic i obiektów programu, a odwzorowanie w pamięci blokowałoby
+        // na Windowsie zastąpienie pliku przy ponownej kompilacji, dopóki nie zwolni go odśmiecacz
+        var in = ByteBuffer.wrap(Files.readAllBytes(file));
+        try {
+            if (in.getInt() != MAGIC) {
+                throw new IOException("Not a compiled script: " + file);
+            }
+            if (in.getShort() != FORMAT_VERSION || in.getLong() != library.getSignatureHash()) {
+                return null;
+            }
+            var hash = new byte[in.get()];
+            in.get(hash);
+            if (!Arrays.equals(hash, sourceHash)) {
+                return null;
+            }
+            int globalFrameSize = in.getInt();
+
+            int size = in.getInt();
+            var code = readInts(in, size);
+            var lines = readInts(in, size);
+            var columns = readInts(in, size);
+
+            var constants = new Object[in.getInt()];
+            for (int i = 0; i < constants.length; i++) {
+                constants[i] = readConstant(in, library);
+                if (constants[i] == null) {
+                    return null;  // funkcja natywna zniknęła mimo zgodnego skrótu sygnatur
+                }
+            }
+
+            var functions = new CompiledProgram.Function[in.getInt()];
+            for (int i = 0; i < functions.length; i++) {
+                var name = readString(in);
+                var returnType = readType(in);
+                var params = new Type[in.getInt()];
+                var paramNames = new String[params.length];
+                for (int j = 0; j < params.length; j++) {
+                    params[j] = readType(in);
+                    paramNames[j] = readString(in);
+                }
+                // deklaracja z drzewa składniowego nie jest już potrzebna - maszyna wirtualna używa adresu wejścia
+                var signature = new ArchitFunction(name, returnType, params, false, null, paramNames);
+                functions[i] = new CompiledProgram.Function(
+                    signature, in.getInt(), in.getInt(), in.getInt(), in.getInt(), in.getInt()
+                );
+            }
+            return new CompiledProgram(code, constants, functions, globalFrameSize, lines, columns);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            throw new IOException("Malformed compiled script: " + file, e);
+        }
+    }
+
+    private static void writeConstant(DataOutputStream out, Object constant) throws IOException {
+        switch (constant) {
+            case Long value -> {
+                out.writeByte(CONST_LONG);
+                out.writeLong(value);
+            }
+            case BigInteger value -> {
+                out.writeByte(CONST_BIG_INTEGER);
+                var bytes = value.toByteArray();
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            }
+            case Double value -> {
+                out.writeByte(CONST_DOUBLE);
+                out.writeDouble(value);
+            }
+            case String value -> {
+                out.writeByte(CONST_STRING);
+                writeString(out, value);
+            }
+            case Boolean value -> {
+                out.writeByte(CONST_BOOLEAN);
+                out.writeBoolean(value);
+            }
+            case Material value -> {
+                out.writeByte(CONST_MATERIAL);
+                writeString(out, value.namespace());
+                writeString(out, value.id());
+            }
+            case InterpolationTemplate value -> {
+                out.writeByte(CONST_TEMPLATE);
+                out.writeInt(value.fragments().length);
+                for (var fragment : value.fragments()) {
+                    writeString(out, fragment);
+                }
+            }
+            case ArchitFunction value -> {
+                out.writeByte(CONST_NATIVE);
+                writeString(out, value.name());
+                out.writeInt(value.params().length);
+                for (var param : value.params()) {
+                    writeType(out, param);
+                }
+            }
+            default -> throw new IllegalArgumentException("Unsupported constant: " + constant.getClass());
+        }
+    }
+
+    private static Object readConstant(ByteBuffer in, StandardLibrary library) throws IOException {
+        byte tag = in.get();
+        return switch (tag) {
+            case CONST_LONG -> in.getLong();
+            case CONST_BIG_INTEGER -> {
+                var bytes = new byte[in.getInt()];
+                in.get(bytes);
+                yield new BigInteger(bytes);
+            }
+            case CONST_DOUBLE -> in.getDouble();
+            case CONST_STRING -> readString(in);
+            case CONST_BOOLEAN -> in.get() != 0;
+            case CONST_MATERIAL -> Material.of(readString(in), readString(in));
+            case CONST_TEMPLATE -> {
+                var fragments = new String[in.getInt()];
+                for (int i = 0; i < fragments.length; i++) {
+                    fragments[i] = readString(in);
+                }
+                yield new InterpolationTemplate(fragments);
+            }
+            case CONST_NATIVE -> {
+                var name = readString(in);
+                var params = new Type[in.getInt()];
+                for (int i = 0; i < params.length; i++) {
+                    params[i] = readType(in);
+                }
+                yield library.resolveFunction(name, params);
+            }
+            default -> throw new IOException("Unknown constant tag " + tag);
+        };
+    }
+
+    private static void writeType(DataOutputStream out, Type type) throws IOException {
+        if (type == null) {
+            out.writeByte(TYPE_NONE);
+        } else if (type.asListType() != null) {
+            out.writeByte(TYPE_LIST);
+            writeType(out, type.asListType().getElements());
+        } else if (type.asMapType() != null) {
+            out.writeByte(TYPE_MAP);
+            writeType(out, type.asMapType().getKey());
+            writeType(out, type.asMapType().getValue());
+        } else if (type.asLiteralType() != null) {
+            out.writeByte(TYPE_LITERAL);
+            var members = type.asLiteralType().getMembers();
+            out.writeInt(members.size());
+            for (var member : members) {
+                writeString(out, member);
+            }
+        } else if (type == Type.emptyList) {
+            out.writeByte(TYPE_EMPTY_LIST);
+        } else if (type == Type.emptyMap) {
+            out.writeByte(TYPE_EMPTY_MAP);
+        } else {
+            out.writeByte(switch (type.getBaseName()) {
+                case "number" -> TYPE_NUMBER;
+                case "real" -> TYPE_REAL;
+                case "logic" -> TYPE_LOGIC;
+                case "string" -> TYPE_STRING;
+                case "material" -> TYPE_MATERIAL;
+                default -> throw new IllegalArgumentException("Unsupported type: " + type);
+            });
+        }
+    }
+
+    private static Type readType(ByteBuffer in) throws IOException {
+        byte tag = in.get();
+        return switch (tag) {
+            case TYPE_NONE -> null;
+            case TYPE_NUMBER -> Type.number;
+            case TYPE_REAL -> Type.real;
+            case TYPE_LOGIC -> Type.logic;
+            case TYPE_STRING -> Type.string;
+            case TYPE_MATERIAL -> Type.material;
+            case TYPE_LIST -> Type.list(readType(in));
+            case TYPE_MAP -> Type.map(readType(in), readType(in));
+            case TYPE_LITERAL -> {
+                var members = new String[in.getInt()];
+                for (int i = 0; i < members.length; i++) {
+                    members[i] = readString(in);
+                }
+                yield Type.literal(members);
+            }
+            case TYPE_EMPTY_LIST -> Type.emptyList;
+            case TYPE_EMPTY_MAP -> Type.emptyMap;
+            default -> throw new IOException("Unknown type tag " + tag);
+        };
+    }
+
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        for (int value : values) {
+            out.writeInt(value);
+        }
+    }
+
+    private static int[] readInts(ByteBuffer in, int count) {
+        var values = new int[count];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + count * Integer.BYTES);
+        return values;
+    }
+
+    // długość jako int - teksty w skryptach mogą przekraczać 64 KiB, limit writeUTF
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer in) {
+        var bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
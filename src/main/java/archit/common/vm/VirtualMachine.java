@@ -0,0 +1,311 @@
+package archit.common.vm;
+
+import archit.common.ArchitFunction;
+import archit.common.Numbers;
+import archit.common.ScriptException;
+import archit.common.ScriptRun;
+import archit.common.Type.Kind;
+import archit.common.stdlib.NativeInvoker;
+import archit.common.visitors.Operators;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Executes a {@link CompiledProgram}. The whole state of the execution lives in explicit stacks,
+ * so the program can be paused after any instruction and resumed in a later tick.
+ */
+public class VirtualMachine {
+    public static final int MAX_RECURSION_DEPTH = 100;
+    private static final int CLOCK_CHECK_MASK = 0x3F;  // sprawdzanie czasu co 64 instrukcje
+    private static final Operators[] OPERATORS = Operators.values();
+
+    private final ScriptRun run;
+    private final int[] code;
+    private final Object[] constants;
+    private final CompiledProgram.Function[] functions;
+    private final int[] lines;
+    private final int[] columns;
+
+    private int pc = 0;
+
+    // stos obiektów
+    private Object[] stack = new Object[64];
+    private int sp = 0;
+
+    // aktualna ramka zmiennych dla każdego poziomu zagnieżdżenia funkcji, [0] to zmienne globalne
+    private final Object[][] frames;
+
+    // liczniki otwartych pętli repeat, jako typ prosty - iteracja niczego nie alokuje
+    private long[] loopCounters = new long[16];
+    private int loopDepth = 0;
+
+    // stos powrotów, razem z ramkami przesłoniętymi przez wywołania
+    // oraz wysokościami stosów w chwili wywołania, do których powrót przycina je w O(1)
+    private final int[] returnAddresses = new int[MAX_RECURSION_DEPTH];
+    private final int[] callStackBases = new int[MAX_RECURSION_DEPTH];
+    private final int[] callLoopBases = new int[MAX_RECURSION_DEPTH];
+    private final int[] callFrameDepths = new int[MAX_RECURSION_DEPTH];
+    private final Object[][] shadowedFrames = new Object[MAX_RECURSION_DEPTH][];
+    private final FunctionCallDebugInfo[] pendingCalls = new FunctionCallDebugInfo[MAX_RECURSION_DEPTH];
+    private int callDepth = 0;
+
+    private FunctionCallDebugInfo lastCall;
+    private long instructionCount = 0;
+
+    public VirtualMachine(ScriptRun run, CompiledProgram program) {
+        this.run = run;
+        this.code = program.code();
+        this.constants = program.constants();
+        this.functions = program.functions();
+        this.lines = program.lines();
+        this.columns = program.columns();
+        int maxDepth = Arrays.stream(functions).mapToInt(CompiledProgram.Function::depth).max().orElse(0);
+        this.frames = new Object[maxDepth + 1][];
+        this.frames[0] = new Object[program.globalFrameSize()];
+    }
+
+    public record FunctionCallDebugInfo(ArchitFunction function, Object[] values) {  // NOSONAR
+        @Override
+        public String toString() {
+            var sb = new StringBuilder();
+            sb.append(function.name());
+            sb.append("(");
+            var params = IntStream.range(0, values.length).mapToObj(i -> {
+                var type = function.params()[i];
+                if (type.getKind() == Kind.SIMPLE) {
+                    return type.toStringObject(values[i]);
+                }
+                return "...";
+            }).collect(Collectors.joining(", "));
+            sb.append(params);
+            sb.append(")");
+            return sb.toString();
+        }
+    }
+
+    /**
+     * @return the function call that interrupted the last {@link #execute} in animation mode, null otherwise
+     */
+    public FunctionCallDebugInfo getLastCall() {
+        return lastCall;
+    }
+
+    /**
+     * @return number of instructions executed so far, not counting the slice ended by a runtime error
+     */
+    public long getInstructionCount() {
+        return instructionCount;
+    }
+
+    /**
+     * Runs the program until it ends or the deadline passes.
+     *
+     * @param deadline value of {@link System#nanoTime()} after which execution should pause
+     * @param stopOnCalls whether to also pause after every completed function call (animation mode)
+     * @return false if the program has finished, true if it can be resumed
+     */
+    public boolean execute(long deadline, boolean stopOnCalls) {
+        lastCall = null;
+        try {
+            return dispatch(deadline, stopOnCalls);
+        } catch (ScriptException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            run.getInterpreter().getLogger().systemError(e, "Unknown runtime exception caught!");
+            throw error("Unknown exception: {}", e.getMessage());
+        }
+    }
+
+    private boolean dispatch(long deadline, boolean stopOnCalls) {
+        // licznik lokalny, dodawany do pola przy wyjściu, by nie zapisywać pola przy każdej instrukcji
+        int counter = 0;
+        while (true) {
+            int instruction = code[pc++];
+            int operand = instruction >> 8;
+            switch (Opcode.VALUES[instruction & 0xFF]) {
+                case PUSH_CONST -> push(constants[operand]);
+                case LOAD -> push(frames[Opcode.depth(operand)][Opcode.slot(operand)]);
+                case STORE -> frames[Opcode.depth(operand)][Opcode.slot(operand)] = pop();
+                case POP -> stack[--sp] = null;
+                case UNARY -> stack[sp - 1] = OPERATORS[operand].apply(stack[sp - 1], null);
+                case BINARY -> {
+                    var op = OPERATORS[operand];
+                    var right = pop();
+                    if (op == Operators.DIVIDE_NUMBERS && Numbers.signum((Number) right) == 0) {
+                        throw error("Division by zero");
+                    }
+                    stack[sp - 1] = op.apply(stack[sp - 1], right);
+                }
+                case MAKE_LIST -> {
+                    List<Object> list = new ArrayList<>(operand);
+                    for (int i = sp - operand; i < sp; i++) {
+                        list.add(stack[i]);
+                    }
+                    drop(operand);
+                    push(list);
+                }
+                case MAKE_MAP -> {
+                    Map<Object, Object> map = HashMap.newHashMap(operand);
+                    // od końca, tak by przy powtórzonych kluczach wygrywało pierwsze wystąpienie
+                    for (int i = sp - 2; i >= sp - 2 * operand; i -= 2) {
+                        map.put(stack[i], stack[i + 1]);
+                    }
+                    drop(2 * operand);
+                    push(map);
+                }
+                case INTERPOLATE -> {
+                    var fragments = ((InterpolationTemplate) constants[operand]).fragments();
+                    int count = fragments.length - 1;
+                    var sb = new StringBuilder(fragments[0]);
+                    for (int i = 0; i < count; i++) {
+                        sb.append(stack[sp - count + i]);
+                        sb.append(fragments[i + 1]);
+                    }
+                    drop(count);
+                    push(sb.toString());
+                }
+                case JUMP -> pc = operand;
+                case JUMP_IF_FALSE -> {
+                    if (!((Boolean) pop())) {
+                        pc = operand;
+                    }
+                }
+                case REPEAT_INIT -> {
+                    if (loopDepth == loopCounters.length) {
+                        loopCounters = Arrays.copyOf(loopCounters, loopDepth * 2);
+                    }
+                    loopCounters[loopDepth++] = repeatCount((Number) pop());
+                }
+                case REPEAT_NEXT -> {
+                    if (loopCounters[loopDepth - 1] > 0) {
+                        loopCounters[loopDepth - 1]--;
+                    } else {
+                        pc = operand;
+                    }
+                }
+                case REPEAT_END -> loopDepth--;
+                case CALL_NATIVE -> {
+                    var function = (ArchitFunction) constants[operand];
+                    int n = function.params().length;
+                    // argumenty są przekazywane prosto ze stosu, kopia potrzebna jest tylko do animacji
+                    var debugArgs = stopOnCalls ? Arrays.copyOfRange(stack, sp - n, sp) : null;
+                    var result = ((NativeInvoker) function.callInfo()).invoke(run, stack, sp - n);
+                    drop(n);
+                    if (result != null) {
+                        push(result);
+                    }
+                    if (stopOnCalls) {
+                        lastCall = new FunctionCallDebugInfo(function, debugArgs);
+                        instructionCount += counter + 1;
+                        return true;
+                    }
+                }
+                case CALL -> {
+                    var function = functions[operand];
+                    if (callDepth + 1 >= MAX_RECURSION_DEPTH) {  // wliczając ramkę globalną
+                        throw new ScriptException(
+                            run,
+                            ScriptException.Type.RUNTIME_ERROR,
+                            function.line(),
+                            function.column(),
+                            "Max recursion depth of {} exceeded",
+                            MAX_RECURSION_DEPTH
+                        );
+                    }
+                    if (stopOnCalls) {
+                        int n = function.signature().params().length;
+                        pendingCalls[callDepth] =
+                            new FunctionCallDebugInfo(function.signature(), Arrays.copyOfRange(stack, sp - n, sp));
+                    }
+                    returnAddresses[callDepth] = pc;
+                    callStackBases[callDepth] = sp - function.signature().params().length;
+                    callLoopBases[callDepth] = loopDepth;
+                    callFrameDepths[callDepth] = function.depth();
+                    shadowedFrames[callDepth] = frames[function.depth()];
+                    frames[function.depth()] = new Object[function.frameSize()];
+                    callDepth++;
+                    pc = function.entry();
+                }
+                case RETURN -> {
+                    if (leaveFunction() && stopOnCalls) {
+                        instructionCount += counter + 1;
+                        return true;
+                    }
+                }
+                case RETURN_VALUE -> {
+                    var value = pop();
+                    boolean report = leaveFunction();
+                    push(value);
+                    if (report && stopOnCalls) {
+                        instructionCount += counter + 1;
+                        return true;
+                    }
+                }
+                case HALT -> {
+                    pc--;
+                    instructionCount += counter + 1;
+                    return false;
+                }
+            }
+            if ((++counter & CLOCK_CHECK_MASK) == 0 && System.nanoTime() - deadline >= 0) {
+                instructionCount += counter;
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return true if the finished call should be reported in animation mode
+     */
+    private boolean leaveFunction() {
+        callDepth--;
+        drop(sp - callStackBases[callDepth]);
+        loopDepth = callLoopBases[callDepth];
+        frames[callFrameDepths[callDepth]] = shadowedFrames[callDepth];
+        shadowedFrames[callDepth] = null;
+        pc = returnAddresses[callDepth];
+        lastCall = pendingCalls[callDepth];
+        pendingCalls[callDepth] = null;
+        return lastCall != null;
+    }
+
+    /**
+     * Counts beyond the range of a long are clamped - no script will outlive that many iterations anyway.
+     */
+    private static long repeatCount(Number count) {
+        if (count instanceof Long value) {
+            return value;
+        }
+        return Numbers.signum(count) > 0 ? Long.MAX_VALUE : 0;
+    }
+
+    private void push(Object value) {
+        if (sp == stack.length) {
+            stack = Arrays.copyOf(stack, sp * 2);
+        }
+        stack[sp++] = value;
+    }
+
+    private Object pop() {
+        var value = stack[--sp];
+        stack[sp] = null;
+        return value;
+    }
+
+    private void drop(int count) {
+        Arrays.fill(stack, sp - count, sp, null);
+        sp -= count;
+    }
+
+    private ScriptException error(String format, Object... params) {
+        int at = Math.max(pc - 1, 0);
+        return new ScriptException(
+            run, ScriptException.Type.RUNTIME_ERROR, lines[at], columns[at], format, params
+        );
+    }
+}
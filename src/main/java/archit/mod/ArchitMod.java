@@ -1,7 +1,12 @@
 package archit.mod;
 
 import archit.common.Interpreter;
+import archit.common.Material;
+import archit.common.Scheduler;
+import archit.common.natives.GeometryNatives;
 import archit.common.ScriptRun;
+import com.mojang.brigadier.arguments.BoolArgumentType;
+import com.mojang.brigadier.arguments.DoubleArgumentType;
 import com.mojang.brigadier.arguments.IntegerArgumentType;
 import com.mojang.brigadier.arguments.StringArgumentType;
 import java.io.IOException;
@@ -10,21 +15,35 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
 import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerWorldEvents;
 import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.registry.Registries;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.text.Text;
+import net.minecraft.util.Identifier;
 
 public class ArchitMod implements ModInitializer {
     public static final String MOD_ID = "archit";
 
     public Path scriptDirectory;
     public Interpreter interpreter;
+    public final WorldMutations mutations = new WorldMutations();
+    public final BlockStateCache blockStates = new BlockStateCache();
+    public ScriptIndex scripts;
+    // domyślnie skrypty działają niezależnie od graczy, np. uruchomione z konsoli lub bloku poleceń
+    private volatile boolean pauseIdleWorlds = false;
 
     @Override
     public void onInitialize() {
         interpreter = new Interpreter(new LoggingImpl());
-        interpreter.getStandardLibrary().registerNatives(new PlatformNatives());
+        Material.setKnownBlocks((namespace, id) -> Registries.BLOCK.containsId(Identifier.of(namespace, id)));
+        var platform = new PlatformNatives(mutations, blockStates);
+        interpreter.getStandardLibrary().registerNatives(platform, new GeometryNatives(platform));
+        interpreter.getScheduler().useWorkers(Runtime.getRuntime().availableProcessors());
 
         scriptDirectory = FabricLoader.getInstance().getGameDir().resolve("archit-scripts");
         try {
@@ -32,6 +51,7 @@ public class ArchitMod implements ModInitializer {
         } catch (IOException e) {
             interpreter.getLogger().systemError(e, "Failed to create archit-scripts directory!");
         }
+        scripts = new ScriptIndex(interpreter, scriptDirectory);
 
         CommandRegistrationCallback.EVENT.register((dispatcher, registryAccess, environment) -> {
             dispatcher.register(
@@ -85,15 +105,98 @@ public class ArchitMod implements ModInitializer {
                                         )
                                     )))
                     ))
+                    .then(CommandManager.literal("placement")
+                        .executes(context -> showPlacement(context.getSource()))
+                        .then(CommandManager.literal("normal").executes(
+                            context -> setPlacementMode(context.getSource(), PlacementMode.NORMAL)
+                        ))
+                        .then(CommandManager.literal("physics_free").executes(
+                            context -> setPlacementMode(context.getSource(), PlacementMode.PHYSICS_FREE)
+                        ))
+                        .then(CommandManager.literal("limit").then(
+                            CommandManager.argument("blocks_per_tick", IntegerArgumentType.integer(1))
+                                .executes(context -> {
+                                    var limit = IntegerArgumentType.getInteger(context, "blocks_per_tick");
+                                    mutations.setPlacementsPerTick(limit);
+                                    return showPlacement(context.getSource());
+                                })
+                        )))
+                    .then(CommandManager.literal("precompile")
+                        .executes(context -> precompileScripts(context.getSource())))
+                    .then(CommandManager.literal("cache")
+                        .executes(context -> showCache(context.getSource()))
+                        .then(CommandManager.literal("clear").executes(context -> {
+                            interpreter.getProgramCache().clear();
+                            return showCache(context.getSource());
+                        }))
+                        .then(CommandManager.literal("capacity").then(
+                            CommandManager.argument("instructions", IntegerArgumentType.integer(0))
+                                .executes(context -> {
+                                    var capacity = IntegerArgumentType.getInteger(context, "instructions");
+                                    interpreter.getProgramCache().setCapacity(capacity);
+                                    return showCache(context.getSource());
+                                })
+                        )))
+                    .then(CommandManager.literal("scheduler")
+                        .executes(context -> showScheduler(context.getSource()))
+                        .then(CommandManager.literal("budget").then(
+                            CommandManager.argument("milliseconds", DoubleArgumentType.doubleArg(0.1, 50))
+                                .executes(context -> {
+                                    var millis = DoubleArgumentType.getDouble(context, "milliseconds");
+                                    interpreter.getScheduler().setTickBudgetNanos((long) (millis * 1_000_000));
+                                    return showScheduler(context.getSource());
+                                })
+                        ))
+                        .then(CommandManager.literal("quota").then(
+                            CommandManager.argument("milliseconds", DoubleArgumentType.doubleArg(0.1, 50))
+                                .executes(context -> {
+                                    var millis = DoubleArgumentType.getDouble(context, "milliseconds");
+                                    interpreter.getScheduler().setPlayerQuotaNanos((long) (millis * 1_000_000));
+                                    return showScheduler(context.getSource());
+                                })
+                        ))
+                        .then(CommandManager.literal("pause_idle").then(
+                            CommandManager.argument("enabled", BoolArgumentType.bool())
+                                .executes(context -> {
+                                    pauseIdleWorlds = BoolArgumentType.getBool(context, "enabled");
+                                    return showScheduler(context.getSource());
+                                })
+                        ))
+                        .then(CommandManager.literal("weight").then(
+                            CommandManager.argument("weight", IntegerArgumentType.integer(1, Scheduler.MAX_WEIGHT))
+                                .then(CommandManager.argument("run_id", StringArgumentType.greedyString())
+                                    .suggests(new RunIdSuggestions(this))
+                                    .executes(
+                                        context
+                                        -> setWeight(
+                                            StringArgumentType.getString(context, "run_id"),
+                                            IntegerArgumentType.getInteger(context, "weight")
+                                        )
+                                    ))
+                        )))
             );
         });
 
-        ServerTickEvents.END_WORLD_TICK.register(world -> onEachTick());
+        // raz na tick serwera - zdarzenie dla świata wywoływane jest osobno dla każdego wymiaru
+        // wątek serwera jedynie nanosi wyniki poprzedniego ticka i przydziela czas wątkom roboczym
+        ServerTickEvents.END_SERVER_TICK.register(server -> {
+            mutations.drain();
+            interpreter.getScheduler().runTick(this::isActive);
+        });
+        ServerLifecycleEvents.SERVER_STARTING.register(server -> blockStates.invalidate());
+        ServerLifecycleEvents.SERVER_STARTED.register(server -> scripts.start());
+        ServerLifecycleEvents.SERVER_STOPPING.register(server -> scripts.stop());
+        ServerLifecycleEvents.END_DATA_PACK_RELOAD.register((server, resources, success) -> blockStates.invalidate());
+        ServerWorldEvents.UNLOAD.register((server, world) -> {
+            stopScripts(world);
+            mutations.discard(world);
+        });
     }
 
     private int runScript(ServerCommandSource source, String scriptName, String args) {
         Path scriptPath = scriptDirectory.resolve(scriptName);
         var run = new ScriptRun(interpreter, scriptPath, source, args);
+        run.setOwner(source.getName());
         var pos = source.getPosition();
         run.setCursor((int) pos.x, (int) pos.y, (int) pos.z);
         boolean success = run.startExecution();
@@ -103,12 +206,32 @@ public class ArchitMod implements ModInitializer {
     private int runScript(ServerCommandSource source, String scriptName, String args, int animationSpeed) {
         Path scriptPath = scriptDirectory.resolve(scriptName);
         var run = new ScriptRun(interpreter, scriptPath, source, args, animationSpeed);
+        run.setOwner(source.getName());
         var pos = source.getPosition();
         run.setCursor((int) pos.x, (int) pos.y, (int) pos.z);
         boolean success = run.startExecution();
         return success ? 1 : 0;
     }
 
+    /**
+     * Compiles every script in the script directory ahead of time, so they start without compilation
+     * also after a restart. Compilation runs on the background pool of {@link ScriptIndex}, the result
+     * is reported from the server thread once it is done.
+     */
+    private int precompileScripts(ServerCommandSource source) {
+        var paths = scripts.getScripts();
+        scripts.precompile(paths, source).whenComplete((compiled, error) -> source.getServer().execute(() -> {
+            if (error != null) {
+                interpreter.getLogger().systemError(error, "Failed to precompile scripts");
+                source.sendError(Text.literal("[archit] Precompilation failed, see the server log"));
+                return;
+            }
+            var message = String.format("[archit] Precompiled %d of %d scripts", compiled, paths.size());
+            source.sendFeedback(() -> Text.literal(message), false);
+        }));
+        return paths.size();
+    }
+
     private int stopScript(String runId) {
         var runs = new ArrayList<>(interpreter.getCurrentRuns());
         for (var run : runs) {
@@ -119,11 +242,76 @@ public class ArchitMod implements ModInitializer {
         return runs.size() - interpreter.getCurrentRuns().size();
     }
 
-    private void onEachTick() {
-        // to avoid ConcurrentModificationException
-        var runs = new ArrayList<>(interpreter.getCurrentRuns());
-        for (var run : runs) {
-            run.runNextTick();
+    private static ServerWorld worldOf(ScriptRun run) {
+        return ((ServerCommandSource) run.getMetadata()).getWorld();
+    }
+
+    /**
+     * Scripts of unloaded worlds are stopped on unload, so by default every run is active. Only with
+     * {@code /archit scheduler pause_idle true} runs are paused while there are no players in their world.
+     */
+    private boolean isActive(ScriptRun run) {
+        return !pauseIdleWorlds || !worldOf(run).getPlayers().isEmpty();
+    }
+
+    private void stopScripts(ServerWorld world) {
+        for (var run : new ArrayList<>(interpreter.getCurrentRuns())) {
+            if (worldOf(run) == world) {
+                run.stopExecution();
+            }
         }
     }
+
+    private int setWeight(String runId, int weight) {
+        int changed = 0;
+        for (var run : interpreter.getCurrentRuns()) {
+            if (run.toString().equals(runId)) {
+                run.setWeight(weight);
+                changed++;
+            }
+        }
+        return changed;
+    }
+
+    private int setPlacementMode(ServerCommandSource source, PlacementMode mode) {
+        mutations.setMode(mode);
+        return showPlacement(source);
+    }
+
+    private int showPlacement(ServerCommandSource source) {
+        var message = String.format(
+            "[archit] Placement mode: %s, blocks per tick: %d",
+            mutations.getMode().name().toLowerCase(),
+            mutations.getPlacementsPerTick()
+        );
+        source.sendFeedback(() -> Text.literal(message), false);
+        return 1;
+    }
+
+    private int showScheduler(ServerCommandSource source) {
+        var scheduler = interpreter.getScheduler();
+        var message = String.format(
+            "[archit] Tick budget: %.1f ms, per-player quota: %.1f ms, pause idle worlds: %b, running scripts: %d",
+            scheduler.getTickBudgetNanos() / 1e6,
+            scheduler.getPlayerQuotaNanos() / 1e6,
+            pauseIdleWorlds,
+            interpreter.getCurrentRuns().size()
+        );
+        source.sendFeedback(() -> Text.literal(message), false);
+        return 1;
+    }
+
+    private int showCache(ServerCommandSource source) {
+        var cache = interpreter.getProgramCache();
+        var message = String.format(
+            "[archit] Cached scripts: %d (%d of %d instructions), hits: %d, misses: %d",
+            cache.getEntryCount(),
+            cache.getSize(),
+            cache.getCapacity(),
+            cache.getHits(),
+            cache.getMisses()
+        );
+        source.sendFeedback(() -> Text.literal(message), false);
+        return 1;
+    }
 }
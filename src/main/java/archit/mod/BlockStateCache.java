@@ -0,0 +1,57 @@
+package archit.mod;
+
+import archit.common.Material;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import net.minecraft.block.Block;
+import net.minecraft.block.BlockState;
+import net.minecraft.registry.Registries;
+import net.minecraft.util.Identifier;
+
+/**
+ * Resolves materials to block states and back. Lookups by material are array accesses
+ * indexed by {@link Material#index()}, the registry is only consulted on the first use of a material.
+ */
+public class BlockStateCache {
+    private volatile BlockState[] states = new BlockState[256];
+    private final Map<Block, Material> materials = new ConcurrentHashMap<>();
+
+    public BlockState get(Material material) {
+        var cached = states;
+        int index = material.index();
+        if (index < cached.length && cached[index] != null) {
+            return cached[index];
+        }
+        return resolve(material);
+    }
+
+    public Material materialOf(BlockState state) {
+        return materials.computeIfAbsent(state.getBlock(), block -> {
+            var id = Registries.BLOCK.getId(block);
+            return Material.of(id.getNamespace(), id.getPath());
+        });
+    }
+
+    /**
+     * Drops everything resolved so far, must be called whenever registries are reloaded.
+     */
+    public synchronized void invalidate() {
+        states = new BlockState[states.length];
+        materials.clear();
+    }
+
+    private synchronized BlockState resolve(Material material) {
+        Identifier id = Identifier.of(material.namespace(), material.id());
+        if (!Registries.BLOCK.containsId(id)) {
+            throw new IllegalArgumentException("Unknown block " + material);
+        }
+        var state = Registries.BLOCK.get(id).getDefaultState();
+        int index = material.index();
+        // nowa tablica przy powiększeniu, by czytający bez blokady nigdy nie widzieli jej w trakcie zmian
+        var updated = index < states.length ? states : Arrays.copyOf(states, Math.max(index + 1, states.length * 2));
+        updated[index] = state;
+        states = updated;
+        return state;
+    }
+}
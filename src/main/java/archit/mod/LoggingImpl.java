@@ -2,6 +2,7 @@ package archit.mod;
 
 import archit.common.Logging;
 import archit.common.ScriptRun;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.MutableText;
@@ -17,6 +18,16 @@ public class LoggingImpl implements Logging {
     private static final Formatting PARAM_COLOR = Formatting.YELLOW;
     private static final String PROMPT = "[archit] ";
 
+    @Override
+    public boolean isTraceEnabled() {
+        return logger.isTraceEnabled();
+    }
+
+    @Override
+    public void systemTrace(String format, Object... objects) {
+        logger.trace(format, objects);
+    }
+
     @Override
     public void systemInfo(String format, Object... objects) {
         logger.info(format, objects);
@@ -35,7 +46,11 @@ public class LoggingImpl implements Logging {
     @Override
     public void scriptPrint(ScriptRun run, String text) {
         var coloredText = Text.literal(PROMPT + "> " + text).formatted(INFO_COLOR);
-        ((ServerCommandSource) run.getMetadata()).sendFeedback(() -> coloredText, false);
+        if (sourceOf(run) == null) {
+            logger.info(coloredText.getString());
+            return;
+        }
+        send(run, cs -> cs.sendFeedback(() -> coloredText, false));
     }
 
     @Override
@@ -46,7 +61,11 @@ public class LoggingImpl implements Logging {
             var color = (i % 2 == 0) ? ERROR_COLOR : PARAM_COLOR;
             text.append(Text.literal(strings.get(i)).formatted(color));
         }
-        ((ServerCommandSource) run.getMetadata()).sendFeedback(() -> text, false);
+        if (sourceOf(run) == null) {
+            logger.warn(text.getString());
+            return;
+        }
+        send(run, cs -> cs.sendFeedback(() -> text, false));
     }
 
     @Override
@@ -57,11 +76,32 @@ public class LoggingImpl implements Logging {
             var color = (i % 2 == 0) ? INFO_COLOR : PARAM_COLOR;
             text.append(Text.literal(strings.get(i)).formatted(color));
         }
-        var cs = (ServerCommandSource) run.getMetadata();
-        if (cs.getPlayer() != null) {
-            cs.getPlayer().sendMessage(text, true);
-        } else {
-            cs.sendFeedback(() -> text, false);
+        if (sourceOf(run) == null) {
+            logger.info(text.getString());
+            return;
         }
+        send(run, cs -> {
+            if (cs.getPlayer() != null) {
+                cs.getPlayer().sendMessage(text, true);
+            } else {
+                cs.sendFeedback(() -> text, false);
+            }
+        });
+    }
+
+    /**
+     * @return the command source that started the run, null for runs started by the mod itself,
+     *         e.g. compiling scripts in the background, whose messages go to the server log instead
+     */
+    private static ServerCommandSource sourceOf(ScriptRun run) {
+        return run != null && run.getMetadata() instanceof ServerCommandSource cs ? cs : null;
+    }
+
+    /**
+     * Scripts may log from worker threads, while messages can only be sent from the server thread.
+     */
+    private static void send(ScriptRun run, Consumer<ServerCommandSource> action) {
+        var cs = sourceOf(run);
+        cs.getServer().execute(() -> action.accept(cs));
     }
 }
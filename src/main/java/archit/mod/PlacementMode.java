@@ -0,0 +1,27 @@
+package archit.mod;
+
+import net.minecraft.block.Block;
+
+/**
+ * Block update flags used when applying placements made by scripts.
+ */
+public enum PlacementMode {
+    /** Regular placement - neighbors are notified, so e.g. sand falls and redstone reacts. */
+    NORMAL(Block.NOTIFY_ALL),
+    /** No neighbor or shape updates, blocks stay exactly as placed; clients are still notified. */
+    PHYSICS_FREE(Block.NOTIFY_LISTENERS | Block.FORCE_STATE);
+
+    private final int flags;
+
+    PlacementMode(int flags) {
+        this.flags = flags;
+    }
+
+    /**
+     * Lighting updates are always skipped here, {@link WorldMutations} queues light checks itself,
+     * only for blocks that change lighting.
+     */
+    public int flags() {
+        return flags | Block.SKIP_LIGHTING_UPDATES;
+    }
+}
@@ -0,0 +1,207 @@
+package archit.mod;
+
+import archit.common.Interpreter;
+import archit.common.ScriptRun;
+import archit.common.vm.ProgramFile;
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Listing of the script directory kept up to date by a {@link WatchService}, so that suggestions
+ * do not touch the filesystem. Scripts are compiled in the background, all of them when the index
+ * is started and then each one again as soon as it is saved, so that {@code /archit run} rarely
+ * has to wait for compilation.
+ */
+public class ScriptIndex {
+    // edytory zapisują plik w kilku krokach, zmiany są zbierane aż do chwili ciszy
+    private static final long DEBOUNCE_MILLIS = 100;
+    private static final String EXTENSION = ".archit";
+
+    private final Interpreter interpreter;
+    private final Path directory;
+    private final Set<String> fileNames = new ConcurrentSkipListSet<>();
+    private WatchService watcher;
+    private ForkJoinPool compiler;
+
+    public ScriptIndex(Interpreter interpreter, Path directory) {
+        this.interpreter = interpreter;
+        this.directory = directory;
+    }
+
+    /**
+     * @return names of all files of the script directory, in alphabetical order
+     */
+    public Set<String> getFileNames() {
+        return fileNames;
+    }
+
+    /**
+     * @return paths of all scripts of the script directory, in alphabetical order
+     */
+    public List<Path> getScripts() {
+        return fileNames.stream().filter(ScriptIndex::isScript).map(directory::resolve).toList();
+    }
+
+    /**
+     * Lists the directory, starts watching it and compiles all scripts in parallel. Compilation uses only half
+     * of the cores, the rest is left for the server. Errors go to the server log.
+     */
+    public synchronized void start() {
+        stop();
+        try {
+            watcher = directory.getFileSystem().newWatchService();
+            directory.register(
+                watcher,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE
+            );
+        } catch (IOException e) {
+            interpreter.getLogger().systemError(e, "Failed to watch the archit-scripts directory!");
+        }
+        // zmiany od tej chwili trafiają do obserwatora, więc pełna lista nie może ich pominąć
+        rescan();
+
+        compiler = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        var scripts = getScripts();
+        compiler.execute(() -> compileAll(scripts));
+        if (watcher != null) {
+            var thread = new Thread(() -> watch(watcher, compiler), "archit-script-watcher");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    public synchronized void stop() {
+        if (watcher != null) {
+            try {
+                watcher.close();
+            } catch (IOException e) {
+                interpreter.getLogger().systemError(e, "Failed to stop watching the archit-scripts directory!");
+            }
+            watcher = null;
+        }
+        if (compiler != null) {
+            compiler.shutdownNow();
+            compiler = null;
+        }
+    }
+
+    /**
+     * Compiles the given scripts on the background pool and saves them to disk, see {@link ScriptRun#precompile()}.
+     *
+     * @param metadata passed to every {@link ScriptRun}, so that errors reach whoever asked for the compilation
+     * @return number of scripts compiled and saved without errors
+     */
+    public synchronized CompletableFuture<Integer> precompile(List<Path> scripts, Object metadata) {
+        if (compiler == null) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("The script index is stopped"));
+        }
+        return CompletableFuture.supplyAsync(
+            () -> (int) scripts.parallelStream()
+                               .filter(script -> new ScriptRun(interpreter, script, metadata, "").precompile())
+                               .count(),
+            compiler
+        );
+    }
+
+    private void rescan() {
+        try (var files = Files.list(directory)) {
+            var current = new HashSet<String>();
+            files.filter(Files::isRegularFile).forEach(file -> current.add(file.getFileName().toString()));
+            fileNames.retainAll(current);
+            fileNames.addAll(current);
+        } catch (IOException e) {
+            interpreter.getLogger().systemError(e, "Failed to list the archit-scripts directory!");
+        }
+    }
+
+    private void watch(WatchService watcher, ForkJoinPool compiler) {
+        try {
+            while (true) {
+                Set<Path> changed = new HashSet<>();
+                var key = watcher.take();
+                while (key != null) {
+                    for (var event : key.pollEvents()) {
+                        if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                            rescan();
+                            changed.addAll(getScripts());
+                        } else if (event.context() instanceof Path name) {
+                            changed.add(directory.resolve(name));
+                        }
+                    }
+                    key.reset();
+                    key = watcher.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS);
+                }
+                for (var script : changed) {
+                    update(script, compiler);
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException | RejectedExecutionException e) {
+            // indeks został zatrzymany
+        }
+    }
+
+    private void update(Path file, ForkJoinPool compiler) {
+        var name = file.getFileName().toString();
+        if (!Files.isRegularFile(file)) {
+            fileNames.remove(name);
+            if (isScript(name)) {
+                interpreter.getProgramCache().remove(file);
+            }
+            return;
+        }
+        fileNames.add(name);
+        if (isScript(name)) {
+            interpreter.getProgramCache().remove(file);
+            compiler.execute(() -> compile(file));
+        }
+    }
+
+    private void compileAll(List<Path> scripts) {
+        if (scripts.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        // strumień równoległy uruchomiony z zadania puli korzysta z tej samej puli
+        var failed = scripts.parallelStream()
+                            .filter(script -> !compile(script))
+                            .map(script -> script.getFileName().toString())
+                            .toList();
+        interpreter.getLogger().systemInfo(
+            "Compiled {} of {} scripts in {} ms",
+            scripts.size() - failed.size(),
+            scripts.size(),
+            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)
+        );
+        if (!failed.isEmpty()) {
+            interpreter.getLogger().systemError("Scripts with errors: {}", String.join(", ", failed));
+        }
+    }
+
+    /**
+     * Scripts saved earlier with {@code /archit precompile} have their file updated as well,
+     * others are only compiled into the program cache.
+     */
+    private boolean compile(Path script) {
+        // uruchomienie bez gracza - błędy trafiają do logu serwera
+        var run = new ScriptRun(interpreter, script, null, "");
+        return Files.exists(ProgramFile.pathFor(script)) ? run.precompile() : run.prepare();
+    }
+
+    private static boolean isScript(String fileName) {
+        return fileName.endsWith(EXTENSION);
+    }
+}
@@ -0,0 +1,229 @@
+package archit.mod;
+
+import archit.common.ScriptRun;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import net.minecraft.block.BlockState;
+import net.minecraft.server.world.ServerWorld;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkSectionPos;
+
+/**
+ * Command buffer between scripts running on worker threads and the server thread. Placements are queued
+ * by the scripts and applied by the server thread at the end of each tick, block reads are served from
+ * the not yet applied placements or from snapshots of whole chunk sections taken by the server thread.
+ * Snapshots are kept across ticks until placements are applied to their section, or for at most
+ * {@link #SNAPSHOT_TICKS} ticks, after which changes made outside of scripts become visible.
+ * <p>
+ * Placements are applied in batches sorted by chunk section, with lighting updates skipped while placing.
+ * Light checks are then queued only for blocks whose opacity or luminance changed, and the server's lighting
+ * provider processes all of them together after the tick. Block changes are synced to clients by the chunk
+ * holders, which already send a single update packet per modified section each tick.
+ */
+public class WorldMutations {
+    public static final int CAPACITY = 65_536;
+    public static final int DEFAULT_PLACEMENTS_PER_TICK = 16_384;
+    public static final int SNAPSHOT_TICKS = 20;
+    private static final long FULL_QUEUE_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+    // wątek serwera wykonuje zadania między tickami, dłuższe oczekiwanie oznacza zatrzymanie serwera
+    private static final long SNAPSHOT_TIMEOUT_SECONDS = 10;
+
+    private record Placement(ServerWorld world, BlockPos pos, BlockState state, long section) {}
+
+    private record SectionKey(ServerWorld world, long section) {}
+
+    private record Snapshot(BlockState[] states, long tick) {}
+
+    // kolejka jest nieblokująca, a licznik ogranicza jej rozmiar
+    private final Queue<Placement> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+
+    // postawione, lecz jeszcze niezastosowane bloki, aby check() widział własne zmiany skryptu
+    private final Map<SectionKey, Map<BlockPos, BlockState>> pending = new ConcurrentHashMap<>();
+    // migawki sekcji, usuwane po naniesieniu zmian w sekcji lub po SNAPSHOT_TICKS tickach
+    private final Map<SectionKey, Snapshot> snapshots = new ConcurrentHashMap<>();
+    private long tick = 0;  // tylko wątek serwera
+
+    private PlacementMode mode = PlacementMode.NORMAL;
+    private int placementsPerTick = DEFAULT_PLACEMENTS_PER_TICK;
+
+    public PlacementMode getMode() {
+        return mode;
+    }
+
+    public void setMode(PlacementMode mode) {
+        this.mode = mode;
+    }
+
+    public int getPlacementsPerTick() {
+        return placementsPerTick;
+    }
+
+    public void setPlacementsPerTick(int placementsPerTick) {
+        if (placementsPerTick <= 0) {
+            throw new IllegalArgumentException("Placements per tick must be positive");
+        }
+        this.placementsPerTick = placementsPerTick;
+    }
+
+    /**
+     * Queues a placement, waiting for the server thread to make room if the buffer is full.
+     */
+    public void place(ScriptRun run, ServerWorld world, BlockPos pos, BlockState state) {
+        if (world.getServer().isOnThread()) {
+            var previous = world.getBlockState(pos);
+            if (world.setBlockState(pos, state, mode.flags()) && affectsLight(previous, state)) {
+                world.getChunkManager().getLightingProvider().checkBlock(pos);
+            }
+            snapshots.remove(keyOf(world, pos));
+            return;
+        }
+        while (size.incrementAndGet() > CAPACITY) {
+            size.decrementAndGet();
+            if (run.isStopped()) {
+                return;
+            }
+            LockSupport.parkNanos(FULL_QUEUE_WAIT_NANOS);
+        }
+        var key = keyOf(world, pos);
+        // wewnątrz compute, tak by drain() nie mógł w tym czasie usunąć mapy jako pustej
+        pending.compute(key, (k, placed) -> {
+            if (placed == null) {
+                placed = new ConcurrentHashMap<>();
+            }
+            placed.put(pos, state);
+            return placed;
+        });
+        queue.add(new Placement(world, pos, state, key.section()));
+    }
+
+    /**
+     * @throws IllegalStateException if the server thread does not take a snapshot in time, e.g. while stopping
+     */
+    public BlockState get(ServerWorld world, BlockPos pos) {
+        var server = world.getServer();
+        if (server.isOnThread()) {
+            return world.getBlockState(pos);
+        }
+        var key = keyOf(world, pos);
+        var placed = pending.get(key);
+        if (placed != null) {
+            var state = placed.get(pos);
+            if (state != null) {
+                return state;
+            }
+        }
+        var snapshot = snapshots.get(key);
+        if (snapshot == null) {
+            // wstawiana na wątku serwera, więc nie może się przepleść z drain()
+            var task = server.submit(() -> snapshots.computeIfAbsent(key, k -> takeSnapshot(world, k.section())));
+            try {
+                snapshot = task.get(SNAPSHOT_TIMEOUT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while reading a block", e);
+            } catch (ExecutionException | TimeoutException e) {
+                task.cancel(false);
+                throw new IllegalStateException("The server did not provide the block at " + pos.toShortString(), e);
+            }
+        }
+        return snapshot.states()[indexOf(pos)];
+    }
+
+    /**
+     * Applies up to {@link #getPlacementsPerTick()} queued placements, the rest waits for the next tick.
+     * Must be called on the server thread.
+     */
+    public void drain() {
+        tick++;
+        snapshots.values().removeIf(snapshot -> tick - snapshot.tick() > SNAPSHOT_TICKS);
+        Map<ServerWorld, List<Placement>> batches = new IdentityHashMap<>();
+        Placement placement;
+        for (int i = 0; i < placementsPerTick && (placement = queue.poll()) != null; i++) {
+            size.decrementAndGet();
+            batches.computeIfAbsent(placement.world(), w -> new ArrayList<>()).add(placement);
+        }
+        batches.forEach(this::apply);
+    }
+
+    private void apply(ServerWorld world, List<Placement> batch) {
+        // sortowanie jest stabilne, więc kolejne zmiany tego samego bloku zachowują kolejność
+        batch.sort(Comparator.comparingLong(Placement::section));
+        int flags = mode.flags();
+        var lighting = world.getChunkManager().getLightingProvider();
+        for (var p : batch) {
+            var previous = world.getBlockState(p.pos());
+            // sprawdzenie tylko trafia do kolejki, światło przeliczane jest dla wszystkich bloków naraz po ticku
+            if (world.setBlockState(p.pos(), p.state(), flags) && affectsLight(previous, p.state())) {
+                lighting.checkBlock(p.pos());
+            }
+        }
+        for (var p : batch) {
+            var key = new SectionKey(world, p.section());
+            snapshots.remove(key);
+            pending.computeIfPresent(key, (k, placed) -> {
+                placed.remove(p.pos(), p.state());
+                return placed.isEmpty() ? null : placed;
+            });
+        }
+    }
+
+    /**
+     * Drops everything queued for an unloading world.
+     */
+    public void discard(ServerWorld world) {
+        queue.removeIf(placement -> {
+            if (placement.world() == world) {
+                size.decrementAndGet();
+                return true;
+            }
+            return false;
+        });
+        pending.keySet().removeIf(key -> key.world() == world);
+        snapshots.keySet().removeIf(key -> key.world() == world);
+    }
+
+    /**
+     * Same condition as the one vanilla uses when lighting updates are not skipped.
+     */
+    private static boolean affectsLight(BlockState previous, BlockState state) {
+        return previous.getOpacity() != state.getOpacity()
+            || previous.getLuminance() != state.getLuminance()
+            || previous.hasSidedTransparency()
+            || state.hasSidedTransparency();
+    }
+
+    private Snapshot takeSnapshot(ServerWorld world, long section) {
+        var states = new BlockState[16 * 16 * 16];
+        var origin = ChunkSectionPos.from(section);
+        var pos = new BlockPos.Mutable();
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    pos.set(origin.getMinX() + x, origin.getMinY() + y, origin.getMinZ() + z);
+                    states[(y << 8) | (z << 4) | x] = world.getBlockState(pos);
+                }
+            }
+        }
+        return new Snapshot(states, tick);
+    }
+
+    private static SectionKey keyOf(ServerWorld world, BlockPos pos) {
+        return new SectionKey(world, ChunkSectionPos.from(pos).asLong());
+    }
+
+    private static int indexOf(BlockPos pos) {
+        return ((pos.getY() & 15) << 8) | ((pos.getZ() & 15) << 4) | (pos.getX() & 15);
+    }
+}
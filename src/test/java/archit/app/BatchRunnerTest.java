@@ -0,0 +1,60 @@
+package archit.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class BatchRunnerTest {
+    @TempDir
+    Path directory;
+
+    private Path createScript(String name) throws IOException {
+        var script = directory.resolve(name);
+        Files.createDirectories(script.getParent());
+        return Files.writeString(script, "");
+    }
+
+    @Test
+    void scriptsWithTheSameNameInDifferentFoldersGetDifferentOutputs() throws IOException {
+        createScript("a/house.archit");
+        createScript("b/house.archit");
+        createScript("b/notes.txt");
+        String pattern = directory + "/**.archit";
+
+        var base = BatchRunner.searchBase(pattern);
+        var names = BatchRunner.findScripts(pattern)
+                               .stream()
+                               .map(script -> BatchRunner.outputName(base, script))
+                               .toList();
+
+        assertEquals(directory.toAbsolutePath(), base.toAbsolutePath());
+        assertEquals(List.of(Path.of("a", "house"), Path.of("b", "house")), names);
+    }
+
+    @Test
+    void scriptsOfADirectoryAreNamedByTheirFileName() throws IOException {
+        var script = createScript("tower.archit");
+
+        var base = BatchRunner.searchBase(directory.toString());
+
+        assertEquals(directory, base);
+        assertEquals(List.of(script), BatchRunner.findScripts(directory.toString()));
+        assertEquals(Path.of("tower"), BatchRunner.outputName(base, script));
+    }
+
+    @Test
+    void singleScriptIsNamedByItsFileName() {
+        var base = BatchRunner.searchBase("tower.archit");
+
+        assertEquals(Path.of("tower"), BatchRunner.outputName(base, Path.of("tower.archit")));
+        assertEquals(
+            Path.of("tower"),
+            BatchRunner.outputName(BatchRunner.searchBase("scripts/tower.archit"), Path.of("scripts/tower.archit"))
+        );
+    }
+}
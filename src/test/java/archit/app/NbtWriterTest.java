@@ -0,0 +1,68 @@
+package archit.app;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import org.junit.jupiter.api.Test;
+
+class NbtWriterTest {
+    private interface Content {
+        void write(NbtWriter writer) throws IOException;
+    }
+
+    private static byte[] write(Content content) throws IOException {
+        var bytes = new ByteArrayOutputStream();
+        try (var writer = new NbtWriter(bytes)) {
+            content.write(writer);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void writesNamedTagsOfCompound() throws IOException {
+        var bytes = write(writer -> {
+            writer.beginCompound("a");
+            writer.writeShort("s", 258);
+            writer.writeString("t", "hi");
+            writer.endCompound();
+        });
+
+        assertArrayEquals(
+            new byte[] {
+                10, 0, 1, 'a',
+                2, 0, 1, 's', 1, 2,
+                8, 0, 1, 't', 0, 2, 'h', 'i',
+                0
+            },
+            bytes
+        );
+    }
+
+    @Test
+    void emptyListHasEndElementType() throws IOException {
+        var empty = write(writer -> writer.beginList("l", NbtWriter.TAG_COMPOUND, 0));
+        var ints = write(writer -> {
+            writer.beginList("l", NbtWriter.TAG_INT, 1);
+            writer.writeIntElement(-1);
+        });
+
+        assertArrayEquals(new byte[] {9, 0, 1, 'l', 0, 0, 0, 0, 0}, empty);
+        assertArrayEquals(new byte[] {9, 0, 1, 'l', 3, 0, 0, 0, 1, -1, -1, -1, -1}, ints);
+    }
+
+    @Test
+    void varIntsUseSevenBitGroups() throws IOException {
+        assertArrayEquals(new byte[] {0}, write(writer -> writer.writeVarInt(0)));
+        assertArrayEquals(new byte[] {127}, write(writer -> writer.writeVarInt(127)));
+        assertArrayEquals(new byte[] {(byte) 0x80, 1}, write(writer -> writer.writeVarInt(128)));
+        assertArrayEquals(
+            new byte[] {(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x0F}, write(writer -> writer.writeVarInt(-1))
+        );
+
+        for (int value : new int[] {0, 1, 127, 128, 16383, 16384, 4095, Integer.MAX_VALUE, -1}) {
+            assertEquals(write(writer -> writer.writeVarInt(value)).length, NbtWriter.varIntLength(value));
+        }
+    }
+}
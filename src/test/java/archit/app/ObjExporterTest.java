@@ -0,0 +1,87 @@
+package archit.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import archit.common.Material;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ObjExporterTest {
+    private static final Material STONE = Material.of("stone");
+    private static final Material DIRT = Material.of("dirt");
+
+    @TempDir
+    Path directory;
+
+    private List<String> export(VoxelStore store, String name) throws IOException {
+        var obj = directory.resolve(name + ".obj");
+        ObjExporter.export(store, obj, directory.resolve(name + ".mtl"));
+        return Files.readAllLines(obj, StandardCharsets.UTF_8);
+    }
+
+    private static long count(List<String> lines, String prefix) {
+        return lines.stream().filter(line -> line.startsWith(prefix)).count();
+    }
+
+    @Test
+    void boxIsMergedIntoSixQuadsWithSharedVertices() throws IOException {
+        var store = new VoxelStore();
+        for (int x = 0; x < 4; x++) {
+            for (int y = 0; y < 3; y++) {
+                for (int z = 0; z < 2; z++) {
+                    store.set(x, y, z, STONE);
+                }
+            }
+        }
+
+        var lines = export(store, "box");
+
+        assertEquals(6, count(lines, "f "));
+        assertEquals(8, count(lines, "v "));
+        assertTrue(lines.contains("v 4 3 2"));
+        assertTrue(lines.contains("v 0 0 0"));
+    }
+
+    @Test
+    void facesAcrossSectionBoundariesAreHidden() throws IOException {
+        var store = new VoxelStore();
+        store.set(15, 0, 0, STONE);
+        store.set(16, 0, 0, STONE);
+
+        var lines = export(store, "boundary");
+
+        // dwa bloki w różnych sekcjach - bez wspólnej ściany, której nie widać
+        assertEquals(10, count(lines, "f "));
+    }
+
+    @Test
+    void facesAreGroupedByMaterial() throws IOException {
+        var store = new VoxelStore();
+        store.set(0, 0, 0, STONE);
+        store.set(1, 0, 0, DIRT);
+
+        var lines = export(store, "materials");
+
+        assertEquals(2, count(lines, "usemtl "));
+        assertEquals(10, count(lines, "f "));
+    }
+
+    @Test
+    void namesAreWrittenInUtf8() throws IOException {
+        var store = new VoxelStore();
+        store.set(0, 0, 0, Material.of("archit_test", "żółty"));
+
+        var lines = export(store, "house");
+        var mtl = Files.readString(directory.resolve("house.mtl"), StandardCharsets.UTF_8);
+
+        assertEquals("mtllib house.mtl", lines.get(0));
+        assertTrue(lines.contains("usemtl archit_test:żółty"));
+        assertTrue(mtl.startsWith("newmtl archit_test:żółty\n"));
+    }
+}
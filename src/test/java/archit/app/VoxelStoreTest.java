@@ -0,0 +1,152 @@
+package archit.app;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import archit.common.Material;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+class VoxelStoreTest {
+    private static final Material AIR = Material.of("air");
+    private static final Material STONE = Material.of("stone");
+
+    private record Position(int x, int y, int z) {}
+
+    private static List<Material> materials(int count) {
+        var materials = new ArrayList<Material>();
+        for (int i = 0; i < count; i++) {
+            materials.add(Material.of("archit_test", "block_" + i));
+        }
+        return materials;
+    }
+
+    @Test
+    void sectionStartsEmpty() {
+        var section = new VoxelSection();
+
+        assertNull(section.get(0));
+        assertNull(section.get(VoxelSection.SIZE - 1));
+        assertEquals(0, section.getBlockCount());
+    }
+
+    @Test
+    void sectionCountsBlocksOtherThanAir() {
+        var section = new VoxelSection();
+
+        section.set(5, STONE);
+        section.set(5, STONE);
+        section.set(6, STONE);
+        section.set(7, null);
+        assertEquals(2, section.getBlockCount());
+
+        section.set(5, Material.of("dirt"));
+        assertEquals(2, section.getBlockCount());
+        section.set(5, null);
+        assertNull(section.get(5));
+        assertEquals(1, section.getBlockCount());
+    }
+
+    @Test
+    void sectionKeepsBlocksWhenPaletteGrows() {
+        // 4096 różnych materiałów wymaga przejścia przez wszystkie szerokości indeksów, aż do 16 bitów
+        var materials = materials(VoxelSection.SIZE);
+        var section = new VoxelSection();
+        for (int i = 0; i < VoxelSection.SIZE; i++) {
+            section.set(i, materials.get(i));
+            // wcześniej zapisane bloki muszą przetrwać każdą zmianę szerokości
+            if (Integer.bitCount(i + 1) == 1) {
+                for (int j = 0; j <= i; j++) {
+                    assertSame(materials.get(j), section.get(j), "index " + j + " after " + (i + 1) + " materials");
+                }
+            }
+        }
+        assertEquals(VoxelSection.SIZE, section.getBlockCount());
+        for (int i = 0; i < VoxelSection.SIZE; i++) {
+            assertSame(materials.get(i), section.get(i));
+        }
+    }
+
+    @Test
+    void indexPacksCoordinatesWithinSection() {
+        assertEquals(0, VoxelSection.index(16, -16, 32));
+        assertEquals((3 << 8) | (2 << 4) | 1, VoxelSection.index(1, 3, 2));
+        assertEquals(VoxelSection.SIZE - 1, VoxelSection.index(-1, -1, -1));
+    }
+
+    @Test
+    void sectionKeyRoundTripsNegativeCoordinates() {
+        int[] values = {0, 1, -1, 12345, -12345, (1 << 19) - 1, -(1 << 19)};
+        for (int x : values) {
+            for (int y : values) {
+                for (int z : values) {
+                    long key = VoxelStore.key(x, y, z);
+                    assertEquals(x, VoxelStore.sectionX(key));
+                    assertEquals(y, VoxelStore.sectionY(key));
+                    assertEquals(z, VoxelStore.sectionZ(key));
+                }
+            }
+        }
+    }
+
+    @Test
+    void storeMatchesMapAfterRandomWrites() {
+        var materials = materials(40);
+        materials.add(AIR);
+        var random = new Random(42);
+        var store = new VoxelStore();
+        Map<Position, Material> expected = new HashMap<>();
+
+        // wiele sekcji, także o ujemnych współrzędnych, żeby tablica sekcji musiała się powiększyć
+        for (int i = 0; i < 100_000; i++) {
+            var position = new Position(random.nextInt(300) - 150, random.nextInt(100) - 64, random.nextInt(300) - 150);
+            var material = materials.get(random.nextInt(materials.size()));
+            store.set(position.x(), position.y(), position.z(), material);
+            if (material == AIR) {
+                expected.remove(position);
+            } else {
+                expected.put(position, material);
+            }
+        }
+
+        assertEquals(expected.size(), store.getBlockCount());
+        for (var entry : expected.entrySet()) {
+            var position = entry.getKey();
+            assertSame(entry.getValue(), store.get(position.x(), position.y(), position.z()));
+        }
+        Map<Position, Material> visited = new HashMap<>();
+        store.forEach((x, y, z, material) -> assertNull(visited.put(new Position(x, y, z), material)));
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void airIsReturnedWhereNothingWasPlaced() {
+        var store = new VoxelStore();
+        store.set(0, 0, 0, AIR);
+
+        assertSame(AIR, store.get(0, 0, 0));
+        assertSame(AIR, store.get(1_000_000, -64, -1_000_000));
+        // stawianie powietrza nie tworzy sekcji
+        assertNull(store.sectionAt(0, 0, 0));
+        assertEquals(0, store.getBlockCount());
+    }
+
+    @Test
+    void emptiedSectionsAreSkipped() {
+        var store = new VoxelStore();
+        store.set(-1, 2, 3, STONE);
+        store.set(-1, 2, 3, AIR);
+        store.set(40, 2, 3, STONE);
+
+        List<Position> sections = new ArrayList<>();
+        store.forEachSection((x, y, z, section) -> sections.add(new Position(x, y, z)));
+
+        assertEquals(List.of(new Position(2, 0, 0)), sections);
+        assertEquals(1, store.getBlockCount());
+    }
+}
@@ -0,0 +1,49 @@
+package archit.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class MaterialTest {
+    @AfterEach
+    void tearDown() {
+        Material.setKnownBlocks((namespace, id) -> true);
+    }
+
+    @Test
+    void equalMaterialsAreSameObject() {
+        assertSame(Material.of("stone"), Material.of("minecraft", "stone"));
+        assertNotEquals(Material.of("stone").index(), Material.of("dirt").index());
+    }
+
+    @Test
+    void parseAcceptsAllForms() {
+        var stone = Material.of("stone");
+        assertSame(stone, Material.parse("stone"));
+        assertSame(stone, Material.parse(":stone"));
+        assertSame(stone, Material.parse("minecraft:stone"));
+        assertEquals("mod:block/variant", Material.parse("mod:block/variant").toString());
+    }
+
+    @Test
+    void parseRejectsInvalidNames() {
+        assertThrows(IllegalArgumentException.class, () -> Material.parse(""));
+        assertThrows(IllegalArgumentException.class, () -> Material.parse("Stone"));
+        assertThrows(IllegalArgumentException.class, () -> Material.parse("a:b:c"));
+        assertThrows(IllegalArgumentException.class, () -> Material.parse("with space"));
+    }
+
+    @Test
+    void parseOnlyInternsKnownBlocks() {
+        Material.setKnownBlocks((namespace, id) -> id.equals("granite"));
+        assertEquals("minecraft:granite", Material.parse("granite").toString());
+        assertThrows(IllegalArgumentException.class, () -> Material.parse("not_a_block_0"));
+        // raz zinternowane materiały są zwracane bez sprawdzania
+        Material.of("literal_block");
+        assertSame(Material.of("literal_block"), Material.parse("literal_block"));
+    }
+}
@@ -0,0 +1,141 @@
+package archit.common;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigInteger;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import org.junit.jupiter.api.Test;
+
+class NumbersTest {
+    private static final BigInteger LONG_MIN = BigInteger.valueOf(Long.MIN_VALUE);
+    private static final BigInteger LONG_MAX = BigInteger.valueOf(Long.MAX_VALUE);
+
+    // wartości na granicach long i pamięci podręcznej oraz jedna poza zakresem long
+    private static final List<Number> VALUES = List.of(
+        0L, 1L, -1L, 2L, -2L, 7L, -1024L, -1025L, 4096L, 4097L,
+        (long) Integer.MAX_VALUE, (long) Integer.MIN_VALUE, 3_037_000_499L, 3_037_000_500L, -3_037_000_500L,
+        Long.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE - 1, Long.MIN_VALUE + 1,
+        LONG_MAX.add(BigInteger.ONE), LONG_MIN.subtract(BigInteger.ONE), BigInteger.TEN.pow(30).negate()
+    );
+
+    /**
+     * The result must equal the one computed on {@link BigInteger} and be in the canonical form.
+     */
+    private static void assertMatchesBigInteger(
+        BinaryOperator<Number> operation, BinaryOperator<BigInteger> expected, Number a, Number b
+    ) {
+        BigInteger reference;
+        try {
+            reference = expected.apply(Numbers.toBigInteger(a), Numbers.toBigInteger(b));
+        } catch (ArithmeticException e) {
+            assertThrows(ArithmeticException.class, () -> operation.apply(a, b), a + ", " + b);
+            return;
+        }
+        var result = operation.apply(a, b);
+        assertEquals(reference, Numbers.toBigInteger(result), a + ", " + b);
+        assertCanonical(result);
+    }
+
+    private static void assertCanonical(Number value) {
+        if (value instanceof BigInteger big) {
+            assertTrue(big.compareTo(LONG_MIN) < 0 || big.compareTo(LONG_MAX) > 0, "not canonical: " + big);
+        } else {
+            assertInstanceOf(Long.class, value);
+        }
+    }
+
+    private static void assertBinary(BinaryOperator<Number> operation, BinaryOperator<BigInteger> expected) {
+        for (var a : VALUES) {
+            for (var b : VALUES) {
+                assertMatchesBigInteger(operation, expected, a, b);
+            }
+        }
+    }
+
+    @Test
+    void addPromotesOnOverflow() {
+        assertBinary(Numbers::add, BigInteger::add);
+        assertEquals(LONG_MAX.add(BigInteger.ONE), Numbers.add(Long.MAX_VALUE, 1L));
+    }
+
+    @Test
+    void subtractPromotesOnOverflow() {
+        assertBinary(Numbers::subtract, BigInteger::subtract);
+        assertEquals(LONG_MIN.subtract(BigInteger.ONE), Numbers.subtract(Long.MIN_VALUE, 1L));
+    }
+
+    @Test
+    void multiplyPromotesOnOverflow() {
+        assertBinary(Numbers::multiply, BigInteger::multiply);
+        assertEquals(LONG_MIN.negate(), Numbers.multiply(Long.MIN_VALUE, -1L));
+    }
+
+    @Test
+    void divideRoundsTowardsZero() {
+        assertBinary(Numbers::divide, BigInteger::divide);
+        assertEquals(-3L, Numbers.divide(-7L, 2L));
+        assertEquals(LONG_MIN.negate(), Numbers.divide(Long.MIN_VALUE, -1L));
+    }
+
+    @Test
+    void modIsNonNegative() {
+        assertBinary(Numbers::mod, BigInteger::mod);
+        assertEquals(1L, Numbers.mod(-7L, 2L));
+    }
+
+    @Test
+    void powMatchesBigInteger() {
+        for (var base : VALUES) {
+            for (int e = 0; e <= 70; e++) {
+                int exponent = e;
+                assertMatchesBigInteger(Numbers::pow, (a, b) -> a.pow(exponent), base, (long) exponent);
+            }
+        }
+        assertEquals(Long.MIN_VALUE, Numbers.pow(-2L, 63L));
+        assertEquals(BigInteger.TWO.pow(63), Numbers.pow(2L, 63L));
+    }
+
+    @Test
+    void unaryOperationsPromoteLongMinValue() {
+        assertEquals(LONG_MIN.negate(), Numbers.negate(Long.MIN_VALUE));
+        assertEquals(LONG_MIN.negate(), Numbers.abs(Long.MIN_VALUE));
+        assertEquals(Long.MIN_VALUE, Numbers.negate(LONG_MIN.negate()));
+        assertEquals(5L, Numbers.abs(-5L));
+    }
+
+    @Test
+    void valueOfReturnsCanonicalForm() {
+        assertSame(Numbers.valueOf(100L), Numbers.valueOf(100L));
+        assertEquals(Long.MIN_VALUE, Numbers.valueOf(LONG_MIN));
+        assertInstanceOf(BigInteger.class, Numbers.valueOf(LONG_MAX.add(BigInteger.ONE)));
+    }
+
+    @Test
+    void parseAcceptsSeparatorsAndLargeLiterals() {
+        assertEquals(1_000_000L, Numbers.parse("1_000_000"));
+        assertEquals(Long.MAX_VALUE, Numbers.parse("9223372036854775807"));
+        assertEquals(LONG_MAX.add(BigInteger.ONE), Numbers.parse("9_223_372_036_854_775_808"));
+    }
+
+    @Test
+    void compareAndExactConversionsWorkAcrossRepresentations() {
+        for (var a : VALUES) {
+            for (var b : VALUES) {
+                assertEquals(
+                    Numbers.toBigInteger(a).compareTo(Numbers.toBigInteger(b)),
+                    Integer.signum(Numbers.compare(a, b))
+                );
+            }
+        }
+        assertEquals(Long.MAX_VALUE, Numbers.longValueExact(Long.MAX_VALUE));
+        assertThrows(ArithmeticException.class, () -> Numbers.longValueExact(LONG_MAX.add(BigInteger.ONE)));
+        assertEquals(Integer.MIN_VALUE, Numbers.intValueExact((long) Integer.MIN_VALUE));
+        assertThrows(ArithmeticException.class, () -> Numbers.intValueExact(1L << 31));
+        assertThrows(ArithmeticException.class, () -> Numbers.intValueExact(LONG_MAX.add(BigInteger.ONE)));
+    }
+}
@@ -0,0 +1,25 @@
+package archit.common;
+
+/**
+ * Logging that drops everything, for tests that do not check messages and for benchmarks,
+ * which should measure the interpreter rather than the console.
+ */
+public class SilentLogging implements Logging {
+    @Override
+    public void systemInfo(String format, Object... objects) {}
+
+    @Override
+    public void systemError(String format, Object... objects) {}
+
+    @Override
+    public void systemError(Throwable t, String format, Object... objects) {}
+
+    @Override
+    public void scriptPrint(ScriptRun run, String text) {}
+
+    @Override
+    public void scriptError(ScriptRun run, String format, Object... objects) {}
+
+    @Override
+    public void scriptDebug(ScriptRun run, String format, Object... objects) {}
+}
@@ -0,0 +1,182 @@
+package archit.common.natives;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import archit.common.Material;
+import archit.common.ScriptRun;
+import java.math.BigInteger;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+class GeometryNativesTest {
+    private static final Material STONE = Material.of("stone");
+
+    private record Position(int x, int y, int z) {}
+
+    private final List<Position> placed = new ArrayList<>();
+    private GeometryNatives natives;
+    private ScriptRun run;
+
+    @BeforeEach
+    void setUp() {
+        natives = new GeometryNatives((run, x, y, z, block) -> placed.add(new Position(x, y, z)));
+        run = new ScriptRun(null, Path.of("test.archit"), null, "");
+        run.setCursor(10, 20, 30);
+    }
+
+    private Set<Position> placedSet() {
+        var set = new HashSet<>(placed);
+        assertEquals(set.size(), placed.size(), "blocks placed more than once");
+        return set;
+    }
+
+    @Test
+    void boxSpansInDirectionOfSigns() {
+        natives.box(run, -2, 3, 1, STONE);
+        var set = placedSet();
+        assertEquals(6, set.size());
+        assertTrue(set.contains(new Position(10, 20, 30)));
+        assertTrue(set.contains(new Position(9, 22, 30)));
+        assertFalse(set.contains(new Position(11, 20, 30)));
+    }
+
+    @Test
+    void hollowBoxSkipsInterior() {
+        natives.hollowBox(run, 3, 3, 3, STONE);
+        var set = placedSet();
+        assertEquals(26, set.size());
+        assertFalse(set.contains(new Position(11, 21, 31)));
+    }
+
+    @Test
+    void zeroSizedBoxPlacesNothing() {
+        natives.box(run, 0, 5, 5, STONE);
+        assertTrue(placed.isEmpty());
+    }
+
+    @Test
+    void sphereOfRadiusOneIsCross() {
+        natives.sphere(run, 1, STONE);
+        assertEquals(7, placedSet().size());
+    }
+
+    @Test
+    void sphereIsSymmetricAndBounded() {
+        natives.sphere(run, 4, STONE);
+        var set = placedSet();
+        for (var p : set) {
+            int dx = p.x() - 10, dy = p.y() - 20, dz = p.z() - 30;
+            assertTrue(dx * dx + dy * dy + dz * dz <= 16);
+            assertTrue(set.contains(new Position(10 - dx, 20 - dy, 30 - dz)));
+        }
+        assertTrue(set.contains(new Position(14, 20, 30)));
+    }
+
+    @Test
+    void hollowSphereHasNoInterior() {
+        natives.hollowSphere(run, 4, STONE);
+        var set = placedSet();
+        assertFalse(set.contains(new Position(10, 20, 30)));
+        assertTrue(set.contains(new Position(14, 20, 30)));
+    }
+
+    @Test
+    void ellipsoidWithZeroRadiusIsDisc() {
+        natives.ellipsoid(run, 0, 5, 5, STONE);
+        var set = placedSet();
+        for (var p : set) {
+            int dy = p.y() - 20, dz = p.z() - 30;
+            assertEquals(10, p.x());
+            assertTrue(dy * dy + dz * dz <= 25, "outside of the disc: " + p);
+        }
+        // nie pełny kwadrat 11x11
+        assertFalse(set.contains(new Position(10, 25, 35)));
+        assertTrue(set.contains(new Position(10, 25, 30)));
+        assertTrue(set.contains(new Position(10, 20, 30)));
+        assertTrue(set.size() < 121);
+    }
+
+    @Test
+    void hollowEllipsoidWithZeroRadiusIsRing() {
+        natives.ellipsoid(run, 0, 5, 5, STONE);
+        int disc = placed.size();
+        placed.clear();
+        natives.hollowEllipsoid(run, 0, 5, 5, STONE);
+        var set = placedSet();
+        assertFalse(set.contains(new Position(10, 20, 30)));
+        assertTrue(set.contains(new Position(10, 25, 30)));
+        assertTrue(set.size() < disc);
+    }
+
+    @Test
+    void ellipsoidWithTwoZeroRadiiIsLine() {
+        natives.ellipsoid(run, 0, 3, 0, STONE);
+        var set = placedSet();
+        assertEquals(7, set.size());
+        for (var p : set) {
+            assertEquals(10, p.x());
+            assertEquals(30, p.z());
+        }
+    }
+
+    @Test
+    void negativeRadiusIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> natives.ellipsoid(run, -1, 2, 2, STONE));
+        assertThrows(IllegalArgumentException.class, () -> natives.cylinder(run, -1, 2, STONE));
+    }
+
+    @Test
+    void cylinderStandsOnCursor() {
+        natives.cylinder(run, 2, 4, STONE);
+        var set = placedSet();
+        assertEquals(13 * 4, set.size());
+        for (var p : set) {
+            assertTrue(p.y() >= 20 && p.y() < 24);
+        }
+    }
+
+    @Test
+    void coneNarrowsUpwards() {
+        natives.cone(run, 3, 3, STONE);
+        int[] layers = new int[3];
+        for (var p : placedSet()) {
+            layers[p.y() - 20]++;
+        }
+        assertTrue(layers[0] > layers[1] && layers[1] > layers[2]);
+    }
+
+    @Test
+    void lineIncludesBothEnds() {
+        natives.line(run, 5, -2, 3, STONE);
+        var set = placedSet();
+        assertEquals(6, set.size());
+        assertTrue(set.contains(new Position(10, 20, 30)));
+        assertTrue(set.contains(new Position(15, 18, 33)));
+    }
+
+    @Test
+    void tooLargeShapeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> natives.box(run, 1024, 1024, 1024, STONE));
+        assertThrows(IllegalArgumentException.class, () -> natives.line(run, 1L << 28, 0, 0, STONE));
+        assertThrows(IllegalArgumentException.class, () -> natives.line(run, Integer.MIN_VALUE, 0, 0, STONE));
+        assertTrue(placed.isEmpty());
+    }
+
+    @Test
+    void numbersOutsideIntRangeAreRejected() {
+        // obcięte do int wszystkie te wartości dałyby małe, poprawne kształty
+        var big = BigInteger.ONE.shiftLeft(64).add(BigInteger.TWO);
+        assertThrows(IllegalArgumentException.class, () -> natives.sphere(run, (1L << 32) + 2, STONE));
+        assertThrows(IllegalArgumentException.class, () -> natives.cylinder(run, 2, big, STONE));
+        assertThrows(IllegalArgumentException.class, () -> natives.box(run, 1, 1, -(1L << 32) + 1, STONE));
+        assertTrue(placed.isEmpty());
+    }
+}
@@ -0,0 +1,142 @@
+package archit.common.vm;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import archit.common.ArchitFunction;
+import archit.common.Material;
+import archit.common.ProgramCache;
+import archit.common.SilentLogging;
+import archit.common.Type;
+import archit.common.stdlib.StandardLibrary;
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Arrays;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+class ProgramFileTest {
+    @TempDir
+    Path directory;
+
+    private StandardLibrary library;
+    private Path script;
+    private Path file;
+    private byte[] hash;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        library = new StandardLibrary(new SilentLogging());
+        script = directory.resolve("test.archit");
+        Files.writeString(script, "print('test');");
+        file = ProgramFile.pathFor(script);
+        hash = ProgramCache.hash(Files.readAllBytes(script));
+    }
+
+    private CompiledProgram program() {
+        var asReal = library.resolveFunction("as_real", new Type[] {Type.number});
+        assertNotNull(asReal);
+        Object[] constants = {
+            42L,
+            new BigInteger("123456789012345678901234567890"),
+            2.5,
+            "zażółć " + "x".repeat(70_000),
+            true,
+            Material.of("mod", "block"),
+            new InterpolationTemplate(new String[] {"a", "b", ""}),
+            asReal,
+        };
+        var signature = new ArchitFunction(
+            "f", Type.list(Type.number), new Type[] {Type.number, Type.map(Type.string, Type.material)}, false,
+            null, new String[] {"x", "m"}
+        );
+        var functions = new CompiledProgram.Function[] {new CompiledProgram.Function(signature, 3, 1, 4, 7, 2)};
+        int[] code = {1, 2, 3, 4, 5};
+        int[] lines = {1, 1, 2, 3, 3};
+        int[] columns = {0, 4, 0, 2, 8};
+        return new CompiledProgram(code, constants, functions, 6, lines, columns);
+    }
+
+    @Test
+    void roundTrip() throws IOException {
+        var program = program();
+        ProgramFile.write(file, program, hash, library);
+        var read = ProgramFile.read(file, script, hash, library);
+
+        assertNotNull(read);
+        assertArrayEquals(program.code(), read.code());
+        assertArrayEquals(program.lines(), read.lines());
+        assertArrayEquals(program.columns(), read.columns());
+        assertEquals(program.globalFrameSize(), read.globalFrameSize());
+        assertArrayEquals(program.constants(), read.constants());
+        assertSame(program.constants()[5], read.constants()[5]);
+        assertSame(program.constants()[7], read.constants()[7]);
+
+        var function = read.functions()[0];
+        var expected = program.functions()[0];
+        assertEquals(expected.signature().name(), function.signature().name());
+        assertEquals(expected.signature().returnType(), function.signature().returnType());
+        assertArrayEquals(expected.signature().params(), function.signature().params());
+        assertArrayEquals(expected.signature().paramNames(), function.signature().paramNames());
+        assertEquals(expected.entry(), function.entry());
+        assertEquals(expected.depth(), function.depth());
+        assertEquals(expected.frameSize(), function.frameSize());
+        assertEquals(expected.line(), function.line());
+        assertEquals(expected.column(), function.column());
+    }
+
+    @Test
+    void rewriteReplacesReadFile() throws IOException {
+        ProgramFile.write(file, program(), hash, library);
+        assertNotNull(ProgramFile.read(file, script, hash, library));
+        // plik już odczytany musi dać się zastąpić, np. przy ponownej kompilacji po zapisaniu skryptu
+        var changed = new CompiledProgram(new int[] {9}, new Object[0], new CompiledProgram.Function[0], 0,
+            new int[] {1}, new int[] {0});
+        ProgramFile.write(file, changed, hash, library);
+        assertArrayEquals(new int[] {9}, ProgramFile.read(file, script, hash, library).code());
+    }
+
+    @Test
+    void missingFileIsNotRead() throws IOException {
+        assertNull(ProgramFile.read(file, script, hash, library));
+    }
+
+    @Test
+    void differentSourceIsNotRead() throws IOException {
+        ProgramFile.write(file, program(), hash, library);
+        var otherHash = ProgramCache.hash("print('other');".getBytes(StandardCharsets.UTF_8));
+        assertNull(ProgramFile.read(file, script, otherHash, library));
+    }
+
+    @Test
+    void fileOlderThanScriptIsNotRead() throws IOException {
+        ProgramFile.write(file, program(), hash, library);
+        Files.setLastModifiedTime(script, FileTime.from(Instant.now().plusSeconds(60)));
+        assertNull(ProgramFile.read(file, script, hash, library));
+    }
+
+    @Test
+    void truncatedFileIsMalformed() throws IOException {
+        ProgramFile.write(file, program(), hash, library);
+        var bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+        assertThrows(IOException.class, () -> ProgramFile.read(file, script, hash, library));
+    }
+
+    @Test
+    void otherFileIsRejected() throws IOException {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "not a compiled script");
+        assertThrows(IOException.class, () -> ProgramFile.read(file, script, hash, library));
+    }
+}